@@ -0,0 +1,71 @@
+package heatH.heatHBack.benchmark;
+
+import heatH.heatHBack.model.Ingredients;
+import heatH.heatHBack.model.MeasurementTypes;
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.NutritionProfile;
+import heatH.heatHBack.model.client.FatSecretClient;
+import heatH.heatHBack.repository.IngredientNutritionRepository;
+import heatH.heatHBack.service.implementation.CalorieService;
+import heatH.heatHBack.service.implementation.IngredientNutritionCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nutrition aggregation with FatSecret answers served from the warm nutrition cache,
+ * so only the cache hit and the per-ingredient scaling and summing are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalorieServiceBenchmark {
+
+    @Param({"5", "20"})
+    private int ingredientCount;
+
+    private CalorieService calorieService;
+    private List<Ingredients> ingredients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // only the first call per ingredient reaches the repository; after that the in-memory tier answers
+        IngredientNutritionRepository repository = InMemoryRepository.of(IngredientNutritionRepository.class, Map.of(
+                "findById", args -> Optional.empty(),
+                "save", args -> args[0]));
+        IngredientNutritionCache nutritionCache = new IngredientNutritionCache(new StubFatSecretClient(),
+                repository, 5000, 30, 8, 5000);
+        calorieService = new CalorieService(nutritionCache);
+        ingredients = new ArrayList<>();
+        MeasurementTypes[] types = MeasurementTypes.values();
+        for (int i = 0; i < ingredientCount; i++) {
+            Ingredients ingredient = new Ingredients();
+            ingredient.setName("ingredient " + i);
+            ingredient.setQuantity(50 + i * 10);
+            ingredient.setType(types[i % types.length]);
+            ingredients.add(ingredient);
+        }
+    }
+
+    @Benchmark
+    public NutritionProfile calculateNutritionProfile() {
+        return calorieService.calculateNutritionProfile(ingredients);
+    }
+
+    private static final class StubFatSecretClient extends FatSecretClient {
+        private final NutritionFacts nutrition =
+                new NutritionFacts("stub", 100, 250, 12, 9, 30, 4.0, 2.0, 310.0, 3.1, 180.0, 25.0, 8.0, 6.0);
+
+        @Override
+        public Optional<NutritionFacts> getFoodNutrition(String query) {
+            return Optional.of(nutrition);
+        }
+    }
+}
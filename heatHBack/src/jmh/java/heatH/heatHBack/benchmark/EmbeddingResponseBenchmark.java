@@ -0,0 +1,61 @@
+package heatH.heatHBack.benchmark;
+
+import heatH.heatHBack.service.implementation.EmbeddingResponseParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a 1536-dimension /embeddings response in both encodings.
+ * Run with -prof gc to compare allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmbeddingResponseBenchmark {
+
+    private static final int DIMENSION = 1536;
+
+    private byte[] floatResponse;
+    private byte[] base64Response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ByteBuffer packed = ByteBuffer.allocate(DIMENSION * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        StringBuilder floats = new StringBuilder("[");
+        for (int i = 0; i < DIMENSION; i++) {
+            float value = (float) random.nextGaussian() * 0.05f;
+            packed.putFloat(value);
+            floats.append(i == 0 ? "" : ",").append(value);
+        }
+        floats.append(']');
+        floatResponse = response(floats.toString());
+        base64Response = response('"' + Base64.getEncoder().encodeToString(packed.array()) + '"');
+    }
+
+    private static byte[] response(String embedding) {
+        return ("{\"object\":\"list\",\"data\":[{\"object\":\"embedding\",\"index\":0,\"embedding\":" + embedding
+                + "}],\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":8,\"total_tokens\":8}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<double[]> parseFloatArray() {
+        return EmbeddingResponseParser.parse(floatResponse, 1);
+    }
+
+    @Benchmark
+    public List<double[]> parseBase64() {
+        return EmbeddingResponseParser.parse(base64Response, 1);
+    }
+}
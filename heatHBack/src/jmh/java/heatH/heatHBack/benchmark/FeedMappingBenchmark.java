@@ -0,0 +1,114 @@
+package heatH.heatHBack.benchmark;
+
+import heatH.heatHBack.model.Feed;
+import heatH.heatHBack.model.FeedType;
+import heatH.heatHBack.model.User;
+import heatH.heatHBack.model.response.FeedResponse;
+import heatH.heatHBack.repository.FeedRepository;
+import heatH.heatHBack.repository.LikeRepository;
+import heatH.heatHBack.repository.RecipeRepository;
+import heatH.heatHBack.repository.UserRepository;
+import heatH.heatHBack.service.implementation.FeedService;
+import heatH.heatHBack.service.implementation.RecentFeedWindow;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feed entity to FeedResponse mapping for one page of the recent feed, with
+ * repositories answering from memory (see {@link InMemoryRepository}) so only the
+ * service-side work is measured, against the same page served from RecentFeedWindow.
+ * Collaborators these reads never reach are left null.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedMappingBenchmark {
+
+    private static final String USERNAME = "benchmark@heath.app";
+
+    private FeedService feedService;
+    private FeedService windowedFeedService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User currentUser = new User();
+        currentUser.setId(1L);
+        currentUser.setUsername(USERNAME);
+
+        List<Feed> feeds = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Feed feed = new Feed();
+            feed.setId(id);
+            feed.setUserId(100 + id % 5);
+            feed.setType(FeedType.TEXT);
+            feed.setText("post " + id);
+            feed.setCreatedAt(LocalDateTime.now().minusMinutes(id));
+            feed.setLikeCount((int) id);
+            feed.setCommentCount((int) (id / 2));
+            feeds.add(feed);
+        }
+        PageImpl<Feed> page = new PageImpl<>(feeds);
+
+        List<User> authors = new ArrayList<>();
+        for (long userId = 100; userId < 105; userId++) {
+            User author = new User();
+            author.setId(userId);
+            author.setName("Author");
+            author.setSurname(String.valueOf(userId));
+            authors.add(author);
+        }
+        Set<Long> liked = Set.of(2L, 7L);
+
+        FeedRepository feedRepository = InMemoryRepository.of(FeedRepository.class, Map.of(
+                "findAllByOrderByCreatedAtDesc", args -> page,
+                "findAllByOrderByCreatedAtDescIdDesc", args -> page));
+        LikeRepository likeRepository = InMemoryRepository.of(LikeRepository.class, Map.of(
+                "findLikedFeedIds", args -> liked,
+                "findLikedFeedIdsByUsername", args -> liked));
+        UserRepository userRepository = InMemoryRepository.of(UserRepository.class, Map.of(
+                "findByUsername", args -> USERNAME.equals(args[0]) ? Optional.of(currentUser) : Optional.empty(),
+                "findAllById", args -> authors));
+        // the benchmark feeds carry no recipes, so this is never called
+        RecipeRepository recipeRepository = InMemoryRepository.of(RecipeRepository.class, Map.of());
+
+        feedService = new FeedService(feedRepository, null, likeRepository, userRepository, recipeRepository,
+                null, new RecentFeedWindow(0, 0), null);
+        windowedFeedService = new FeedService(feedRepository, null, likeRepository, userRepository, recipeRepository,
+                null, new RecentFeedWindow(200, Integer.MAX_VALUE), null);
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(USERNAME, "password"));
+        SecurityContextHolder.setContext(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public List<FeedResponse> recentFeedPage() {
+        return feedService.getRecentFeedsForUser(0L);
+    }
+
+    // the same page answered by RecentFeedWindow: copies plus the like overlay
+    @Benchmark
+    public List<FeedResponse> recentFeedPageFromWindow() {
+        return windowedFeedService.getRecentFeedsForUser(0L);
+    }
+}
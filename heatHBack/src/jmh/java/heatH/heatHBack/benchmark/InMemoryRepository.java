@@ -0,0 +1,33 @@
+package heatH.heatHBack.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repository stubs for benchmarks. Each stubbed method answers from memory through a plain
+ * lambda looked up by method name, so a call costs a map lookup rather than a mocking
+ * framework's invocation recording and argument matching. Default methods run their own
+ * body; any other method throws, so a benchmark cannot silently measure an unstubbed call.
+ */
+final class InMemoryRepository {
+
+    private InMemoryRepository() {}
+
+    static <R> R of(Class<R> type, Map<String, Function<Object[], Object>> answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) return answer.apply(args);
+            if (method.isDefault()) return InvocationHandler.invokeDefault(proxy, method, args);
+            return switch (method.getName()) {
+                case "toString" -> "InMemory" + type.getSimpleName();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                        + " is not stubbed");
+            };
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,50 @@
+package heatH.heatHBack.benchmark;
+
+import heatH.heatHBack.service.implementation.RecipeVectorIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact top-K scoring as done by SemanticSearchService, over synthetic embeddings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class VectorSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int recipes;
+
+    @Param({"256"})
+    private int dimension;
+
+    @Param({"none", "int8"})
+    private String quantization;
+
+    private RecipeVectorIndex index;
+    private double[] query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new RecipeVectorIndex(quantization, 4, 50_000);
+        float[] v = new float[dimension];
+        for (long id = 1; id <= recipes; id++) {
+            for (int i = 0; i < dimension; i++) v[i] = (float) random.nextGaussian();
+            index.put(id, v);
+        }
+        query = new double[dimension];
+        for (int i = 0; i < dimension; i++) query[i] = random.nextGaussian();
+    }
+
+    @Benchmark
+    public List<Long> nearestTop10() {
+        return index.nearest(query, 10);
+    }
+}
@@ -44,6 +44,7 @@ public class SecurityConfig {
                 .securityMatcher("/**") // tüm yollar için geçerli
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(sess -> sess
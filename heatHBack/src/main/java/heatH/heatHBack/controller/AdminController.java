@@ -0,0 +1,105 @@
+package heatH.heatHBack.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import heatH.heatHBack.model.client.FatSecretClient;
+import heatH.heatHBack.model.response.EmbeddingBatcherStatsResponse;
+import heatH.heatHBack.model.response.EmbeddingCacheStatsResponse;
+import heatH.heatHBack.model.response.EmbeddingReindexStatusResponse;
+import heatH.heatHBack.model.response.EmbeddingVersionReportResponse;
+import heatH.heatHBack.model.response.FatSecretTokenStatsResponse;
+import heatH.heatHBack.model.response.NutritionCacheStatsResponse;
+import heatH.heatHBack.service.implementation.EmbeddingBatcher;
+import heatH.heatHBack.service.implementation.EmbeddingReindexService;
+import heatH.heatHBack.service.implementation.IngredientNutritionCache;
+import heatH.heatHBack.model.response.RecallReportResponse;
+import heatH.heatHBack.service.implementation.QueryEmbeddingCache;
+import heatH.heatHBack.service.implementation.SemanticSearchService;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    private final SemanticSearchService semanticSearchService;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final EmbeddingReindexService embeddingReindexService;
+    private final FatSecretClient fatSecretClient;
+    private final IngredientNutritionCache nutritionCache;
+
+    @GetMapping("/search/recall-report")
+    public ResponseEntity<RecallReportResponse> recallReport(@RequestParam(defaultValue = "200") int sampleSize,
+                                                             @RequestParam(defaultValue = "10") int topK,
+                                                             @RequestParam(defaultValue = "16,32,64,128,256") List<Integer> efSearch) {
+        return ResponseEntity.ok(semanticSearchService.recallReport(sampleSize, topK, efSearch));
+    }
+
+    @GetMapping("/search/embedding-cache")
+    public ResponseEntity<EmbeddingCacheStatsResponse> embeddingCacheStats() {
+        return ResponseEntity.ok(queryEmbeddingCache.stats());
+    }
+
+    @DeleteMapping("/search/embedding-cache")
+    public ResponseEntity<String> clearEmbeddingCache() {
+        queryEmbeddingCache.clear();
+        return ResponseEntity.ok("Embedding cache cleared.");
+    }
+
+    @GetMapping("/search/embedding-batcher")
+    public ResponseEntity<EmbeddingBatcherStatsResponse> embeddingBatcherStats() {
+        return ResponseEntity.ok(embeddingBatcher.stats());
+    }
+
+    @PostMapping("/search/reindex")
+    public ResponseEntity<EmbeddingReindexStatusResponse> startReindex(@RequestParam(defaultValue = "false") boolean restart,
+                                                                       @RequestParam(required = false) String model,
+                                                                       @RequestParam(required = false) Integer dimensions) {
+        return ResponseEntity.ok(embeddingReindexService.start(restart, model, dimensions));
+    }
+
+    @GetMapping("/search/reindex")
+    public ResponseEntity<EmbeddingReindexStatusResponse> reindexStatus() {
+        return ResponseEntity.ok(embeddingReindexService.status());
+    }
+
+    @DeleteMapping("/search/reindex")
+    public ResponseEntity<String> stopReindex() {
+        embeddingReindexService.stop();
+        return ResponseEntity.ok("Embedding re-index will pause after the current page.");
+    }
+
+    @GetMapping("/search/embedding-versions")
+    public ResponseEntity<EmbeddingVersionReportResponse> embeddingVersions() {
+        return ResponseEntity.ok(embeddingReindexService.versionReport());
+    }
+
+    @DeleteMapping("/search/embedding-versions")
+    public ResponseEntity<String> purgeOtherEmbeddingVersions() {
+        long deleted = embeddingReindexService.purgeOtherVersions();
+        return ResponseEntity.ok("Deleted " + deleted + " embeddings of other versions.");
+    }
+
+    @GetMapping("/fatsecret/token")
+    public ResponseEntity<FatSecretTokenStatsResponse> fatSecretTokenStats() {
+        return ResponseEntity.ok(fatSecretClient.tokenStats());
+    }
+
+    @GetMapping("/nutrition-cache")
+    public ResponseEntity<NutritionCacheStatsResponse> nutritionCacheStats() {
+        return ResponseEntity.ok(nutritionCache.stats());
+    }
+
+    @DeleteMapping("/nutrition-cache")
+    public ResponseEntity<String> clearNutritionCache(@RequestParam(required = false) String ingredient) {
+        if (ingredient != null) {
+            nutritionCache.invalidate(ingredient);
+            return ResponseEntity.ok("Nutrition cache entry removed for " + ingredient + ".");
+        }
+        nutritionCache.invalidateAll();
+        return ResponseEntity.ok("Nutrition cache cleared.");
+    }
+}
@@ -5,7 +5,9 @@ import java.util.List;
 import heatH.heatHBack.model.Comment;
 import heatH.heatHBack.model.request.*;
 import heatH.heatHBack.model.response.CommentResponse;
+import heatH.heatHBack.model.response.FeedPageResponse;
 import heatH.heatHBack.model.response.FeedProfileResponse;
+import heatH.heatHBack.model.response.ProfileFeedPageResponse;
 import heatH.heatHBack.service.implementation.CommentService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -59,18 +61,55 @@ public class FeedController {
         return ResponseEntity.ok(comments);
     }
 
-    @GetMapping("/recent")
+    @GetMapping(value = "/recent", params = "pageNumber")
     public List<FeedResponse> getRecentFeedsForUser(@RequestParam Long pageNumber) {
         return feedService.getRecentFeedsForUser(pageNumber);
     }
 
-    @GetMapping("/feed-by-user")
+    @GetMapping(value = "/recent", params = "!pageNumber")
+    public FeedPageResponse getRecentFeedsPage(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "20") int limit) {
+        return feedService.getRecentFeedsForUser(cursor, limit);
+    }
+
+    @GetMapping("/home")
+    public FeedPageResponse getHomeTimeline(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        return feedService.getHomeTimeline(cursor, limit);
+    }
+
+    @PostMapping("/follow")
+    public ResponseEntity<?> follow(@RequestBody FollowRequest request) {
+        feedService.follow(request);
+        return ResponseEntity.ok("User followed");
+    }
+
+    @PostMapping("/unfollow")
+    public ResponseEntity<?> unfollow(@RequestBody FollowRequest request) {
+        feedService.unfollow(request);
+        return ResponseEntity.ok("User unfollowed");
+    }
+
+    @GetMapping(value = "/feed-by-user", params = "!limit")
     public List<FeedResponse> getFeedsByUser () {
         return feedService.getFeedByUser();
     }
 
-    @GetMapping("/other-user")
+    @GetMapping(value = "/feed-by-user", params = "limit")
+    public ProfileFeedPageResponse getFeedsByUserPage(@RequestParam(required = false) String cursor,
+                                                      @RequestParam int limit) {
+        return feedService.getFeedByUser(cursor, limit);
+    }
+
+    @GetMapping(value = "/other-user", params = "!limit")
     public FeedProfileResponse getFeedOtherUser(@RequestParam Long userId){
         return feedService.getFeedOtherUser(userId);
     }
+
+    @GetMapping(value = "/other-user", params = "limit")
+    public ProfileFeedPageResponse getFeedOtherUserPage(@RequestParam Long userId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam int limit) {
+        return feedService.getFeedOtherUser(userId, cursor, limit);
+    }
 }
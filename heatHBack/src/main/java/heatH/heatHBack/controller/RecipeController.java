@@ -7,6 +7,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import heatH.heatHBack.model.request.RecipeRequest;
+import heatH.heatHBack.model.response.RecipeEnrichmentStatusResponse;
 import heatH.heatHBack.model.response.RecipeResponse;
 import heatH.heatHBack.model.response.UserEasinessRateResponse;
 import heatH.heatHBack.service.implementation.RecipeService;
@@ -34,6 +35,11 @@ public class RecipeController {
         return ResponseEntity.ok(new RecipeResponse("OK"));
     }
     
+    @GetMapping("/enrichment-status")
+    public ResponseEntity<RecipeEnrichmentStatusResponse> getEnrichmentStatus(@RequestParam Long recipeId) {
+        return ResponseEntity.ok(recipeService.getEnrichmentStatus(recipeId));
+    }
+
     @GetMapping("/get")
     public ResponseEntity<?> getRecipeDetails(@RequestParam Long recipeId) {
         return recipeService.getRecipeById(recipeId)
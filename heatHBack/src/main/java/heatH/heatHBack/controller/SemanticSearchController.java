@@ -17,7 +17,7 @@ public class SemanticSearchController {
     private final SemanticSearchService semanticSearchService;
     @PostMapping
     public ResponseEntity<List<Recipe>> search(@RequestBody SemanticSearchRequest request) {
-        List<Recipe> results = semanticSearchService.search(request.getQuery(), request.getTopK());
+        List<Recipe> results = semanticSearchService.search(request.getQuery(), request.getTopK(), request.getMode(), request.getFilters());
         
         return ResponseEntity.ok(results);
     }
@@ -0,0 +1,33 @@
+package heatH.heatHBack.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Progress of the bulk embedding re-index. Recipes are walked in id order, so
+ * lastRecipeId is enough to resume: every recipe up to it already has a fresh embedding.
+ */
+@Document(collection = "embedding-reindex-checkpoint")
+@Data
+public class EmbeddingReindexCheckpoint {
+
+    public enum Status { RUNNING, PAUSED, FAILED, COMPLETED }
+
+    @Id
+    private String id;
+    private Status status;
+    private String model;
+    private int dimensions;
+    private long lastRecipeId;
+    private long processedRecipes;
+    private long totalRecipes;
+    private long requests;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+    private String lastError;
+}
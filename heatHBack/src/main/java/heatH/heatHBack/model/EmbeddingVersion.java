@@ -0,0 +1,19 @@
+package heatH.heatHBack.model;
+
+/**
+ * The model and dimension an embedding was created with. Vectors of different versions
+ * live in different spaces and must never be compared with each other.
+ */
+public record EmbeddingVersion(String model, int dimensions) {
+
+    /** Version of a stored embedding; documents written before versions were recorded are assumed to be {@code fallbackModel}. */
+    public static EmbeddingVersion of(RecipeEmbedding embedding, String fallbackModel) {
+        int dimensions = embedding.getDimensions() != null ? embedding.getDimensions()
+                : embedding.getEmbedding() != null ? embedding.getEmbedding().length : 0;
+        return new EmbeddingVersion(embedding.getModel() != null ? embedding.getModel() : fallbackModel, dimensions);
+    }
+
+    public String key() {
+        return model + "/" + dimensions;
+    }
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -19,7 +20,11 @@ import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
-@Table(name = "feed")
+@Table(name = "feed", indexes = {
+        @Index(name = "idx_feed_created_at_id", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_feed_user_created_at", columnList = "user_id, created_at DESC, id DESC"),
+        @Index(name = "idx_feed_user_fanned_out", columnList = "user_id, fanned_out, created_at DESC, id DESC")
+})
 @Data
 public class Feed {
     @Id
@@ -46,5 +51,8 @@ public class Feed {
     
     @Column(name = "comment_count")
     private Integer commentCount;
-    
+
+    // false when the author was above the fan-out threshold at post time; followers pull those posts on read
+    @Column(name = "fanned_out", columnDefinition = "boolean default true")
+    private Boolean fannedOut = true;
 }
@@ -0,0 +1,33 @@
+package heatH.heatHBack.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+@Entity
+@Table(name = "follows",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"follower_id", "followee_id"}),
+        indexes = @Index(name = "idx_follows_followee", columnList = "followee_id"))
+@Data
+public class Follow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "follower_id", nullable = false)
+    private Long followerId;
+
+    @Column(name = "followee_id", nullable = false)
+    private Long followeeId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
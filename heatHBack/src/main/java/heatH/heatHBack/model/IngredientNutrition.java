@@ -0,0 +1,43 @@
+package heatH.heatHBack.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * FatSecret nutrition facts resolved for a normalized ingredient name, kept so
+ * that repeated ingredients do not go back to the external API.
+ */
+@Entity
+@Table(name = "ingredient_nutrition")
+@Data
+public class IngredientNutrition {
+    @Id
+    @Column(name = "ingredient_key")
+    private String ingredientKey;
+
+    private String foodName;
+
+    // per serving weight in grams; the values below are for that weight
+    private Integer weight;
+    private Double calories;
+    private Double protein;
+    private Double fat;
+    private Double carbs;
+
+    private Double vitaminA;
+    private Double vitaminC;
+    private Double sodium;
+    private Double saturatedFat;
+    private Double potassium;
+    private Double cholesterol;
+    private Double calcium;
+    private Double iron;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
@@ -0,0 +1,29 @@
+package heatH.heatHBack.model;
+
+/**
+ * Nutrition facts of one FatSecret food for {@code weight} grams. Micronutrients
+ * are 0 when FatSecret did not report them.
+ */
+public record NutritionFacts(
+        String name,
+        int weight,
+        double calories,
+        double protein,
+        double fat,
+        double carbs,
+        double vitaminA,
+        double vitaminC,
+        double sodium,
+        double saturatedFat,
+        double potassium,
+        double cholesterol,
+        double calcium,
+        double iron) {
+
+    /** Copy with the micronutrients from a food.get serving. */
+    public NutritionFacts withMicronutrients(double vitaminA, double vitaminC, double sodium, double saturatedFat,
+                                             double potassium, double cholesterol, double calcium, double iron) {
+        return new NutritionFacts(name, weight, calories, protein, fat, carbs,
+                vitaminA, vitaminC, sodium, saturatedFat, potassium, cholesterol, calcium, iron);
+    }
+}
@@ -0,0 +1,28 @@
+package heatH.heatHBack.model;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Calories, macros and micros of a recipe computed in one pass over its ingredients,
+ * together with what each ingredient contributed.
+ */
+@Data
+public class NutritionProfile {
+    private int totalCalorie;
+    private NutritionData nutritionData;
+    private List<IngredientBreakdown> ingredients;
+
+    @Data
+    public static class IngredientBreakdown {
+        private String name;
+        private double grams;
+        // false when FatSecret had nothing for the ingredient; it then contributes nothing
+        private boolean resolved;
+        private int calories;
+        private double carbs;
+        private double fat;
+        private double protein;
+    }
+}
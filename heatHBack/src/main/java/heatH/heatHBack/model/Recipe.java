@@ -48,6 +48,11 @@ public class Recipe {
     @Embedded
     private NutritionData nutritionData;
 
+    // calories, nutrition, healthiness score and embedding are filled in by RecipeEnrichmentService
+    @Enumerated(EnumType.STRING)
+    @Column(name = "enrichment_status", columnDefinition = "varchar(255) default 'COMPLETED'")
+    private RecipeEnrichmentStatus enrichmentStatus = RecipeEnrichmentStatus.COMPLETED;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore
@@ -10,6 +10,8 @@ public class RecipeEmbedding {
     private String id;
     private Long recipeId;
     private double[] embedding;
+    private String model;
+    private Integer dimensions;
     private LocalDateTime createdAt;
 
     public RecipeEmbedding() {}
@@ -18,10 +20,21 @@ public class RecipeEmbedding {
         this.embedding = embedding;
         this.createdAt = LocalDateTime.now();
     }
+    public RecipeEmbedding(Long recipeId, double[] embedding, EmbeddingVersion version){
+        this(recipeId, embedding);
+        this.model = version.model();
+        this.dimensions = version.dimensions();
+    }
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
     public Long getRecipeId() { return recipeId; }
     public void setRecipeId(Long recipeId) { this.recipeId = recipeId; }
     public double[] getEmbedding() { return embedding; }
     public void setEmbedding(double[] embedding) { this.embedding = embedding; }
+    public String getModel() { return model; }
+    public void setModel(String model) { this.model = model; }
+    public Integer getDimensions() { return dimensions; }
+    public void setDimensions(Integer dimensions) { this.dimensions = dimensions; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
\ No newline at end of file
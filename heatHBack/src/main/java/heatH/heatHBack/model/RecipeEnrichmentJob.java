@@ -0,0 +1,50 @@
+package heatH.heatHBack.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Durable queue entry for filling in a recipe's nutrition, healthiness score and embedding
+ * after it has been saved. A claimed job stays RUNNING until its lease (nextAttemptAt)
+ * runs out, after which another worker may pick it up again.
+ */
+@Entity
+@Table(name = "recipe_enrichment_job",
+        indexes = @Index(name = "idx_recipe_enrichment_job_due", columnList = "status, next_attempt_at"))
+@Data
+public class RecipeEnrichmentJob {
+
+    public enum Status { PENDING, RUNNING, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipe_id", nullable = false, unique = true)
+    private Long recipeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
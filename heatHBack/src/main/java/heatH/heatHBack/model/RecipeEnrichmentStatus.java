@@ -0,0 +1,7 @@
+package heatH.heatHBack.model;
+
+public enum RecipeEnrichmentStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
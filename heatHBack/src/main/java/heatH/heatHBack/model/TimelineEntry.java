@@ -0,0 +1,40 @@
+package heatH.heatHBack.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * One feed in one user's precomputed home timeline. createdAt is copied from the feed,
+ * so a timeline page is a range scan over (user_id, created_at, feed_id) alone.
+ */
+@Entity
+@Table(name = "home_timeline",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "feed_id"}),
+        indexes = @Index(name = "idx_home_timeline_user_created", columnList = "user_id, created_at DESC, feed_id DESC"))
+@Data
+public class TimelineEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "feed_id", nullable = false)
+    private Long feedId;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
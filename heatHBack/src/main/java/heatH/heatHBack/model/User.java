@@ -43,6 +43,14 @@ public class User implements UserDetails {
     private String name;
     private String surname;
 
+    // kept in step with the follows table; decides between fan-out on write and pull on read
+    @Column(name = "follower_count", columnDefinition = "integer default 0")
+    private Integer followerCount = 0;
+
+    // set the first time the account posts without fan-out, so followers know to pull its posts
+    @Column(name = "has_pulled_feeds", columnDefinition = "boolean default false")
+    private Boolean hasPulledFeeds = false;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
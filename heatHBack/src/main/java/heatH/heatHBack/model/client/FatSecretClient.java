@@ -1,16 +1,23 @@
 package heatH.heatHBack.model.client;
 
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.response.FatSecretTokenStatsResponse;
 import org.springframework.beans.factory.annotation.Value;
+import jakarta.annotation.PostConstruct;
 import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Base64;
-import java.util.HashMap; // Değişiklik: Map.of() yerine HashMap kullanmak için
-import java.util.List;    // Değişiklik: JSON yanıtını işlemek için
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,6 +26,13 @@ public class FatSecretClient {
 
     private static final String TOKEN_URL = "https://oauth.fatsecret.com/connect/token";
     private static final String API_URL = "https://platform.fatsecret.com/rest/server.api";
+    private static final long DEFAULT_TOKEN_TTL_SECONDS = 3600;
+
+    private static final Pattern WEIGHT_PATTERN = Pattern.compile("Per (\\d+)g");
+    private static final Pattern CALORIES_PATTERN = Pattern.compile("Calories: (\\d+(?:\\.\\d+)?)");
+    private static final Pattern PROTEIN_PATTERN = Pattern.compile("Protein: (\\d+(?:\\.\\d+)?)");
+    private static final Pattern FAT_PATTERN = Pattern.compile("Fat: (\\d+(?:\\.\\d+)?)");
+    private static final Pattern CARBS_PATTERN = Pattern.compile("Carbs: (\\d+(?:\\.\\d+)?)");
 
     @Value("${fatsecret.client-id}")
     private String clientId;
@@ -26,10 +40,81 @@ public class FatSecretClient {
     @Value("${fatsecret.client-secret}")
     private String clientSecret;
 
+    // refresh this long before the token actually expires, so in-flight lookups never carry a dead token
+    @Value("${fatsecret.token-refresh-margin-seconds:60}")
+    private long refreshMarginSeconds = 60;
+
+    @Value("${fatsecret.connect-timeout-ms:2000}")
+    private int connectTimeoutMillis = 2000;
+
+    @Value("${fatsecret.read-timeout-ms:5000}")
+    private int readTimeoutMillis = 5000;
+
     private final RestTemplate restTemplate = new RestTemplate();
 
-    /** Step 1️⃣: Get OAuth token (Orijinal, Değişiklik Yok) */
+    // without these a stalled FatSecret call would hold a nutrition-lookup thread forever
+    @PostConstruct
+    void configureTimeouts() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMillis);
+        requestFactory.setReadTimeout(readTimeoutMillis);
+        restTemplate.setRequestFactory(requestFactory);
+    }
+
+    private record CachedToken(String value, long expiresAtMillis) {}
+
+    private volatile CachedToken cachedToken;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong tokenHits = new AtomicLong();
+    private final AtomicLong tokenRefreshes = new AtomicLong();
+    private final AtomicLong tokenRefreshFailures = new AtomicLong();
+
+    /**
+     * Step 1️⃣: Get OAuth token, served from cache until it is close to expiry.
+     * Only one thread refreshes at a time; while the old token is still valid the
+     * others keep using it instead of waiting, once it has expired they wait for the refresh.
+     */
     private String getAccessToken() {
+        CachedToken token = cachedToken;
+        long now = System.currentTimeMillis();
+        if (token != null && now < token.expiresAtMillis() - refreshMarginSeconds * 1000) {
+            tokenHits.incrementAndGet();
+            return token.value();
+        }
+
+        boolean stillValid = token != null && now < token.expiresAtMillis();
+        if (stillValid) {
+            if (!refreshLock.tryLock()) {
+                tokenHits.incrementAndGet();
+                return token.value();
+            }
+        } else {
+            refreshLock.lock();
+        }
+        try {
+            CachedToken current = cachedToken;
+            if (current != token && current != null && System.currentTimeMillis() < current.expiresAtMillis()) {
+                tokenHits.incrementAndGet();
+                return current.value();
+            }
+            try {
+                cachedToken = requestAccessToken();
+                tokenRefreshes.incrementAndGet();
+                return cachedToken.value();
+            } catch (RuntimeException e) {
+                tokenRefreshFailures.incrementAndGet();
+                if (stillValid) {
+                    System.err.println("⚠️ FatSecret token refresh failed, using current token until it expires: " + e.getMessage());
+                    return token.value();
+                }
+                throw e;
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private CachedToken requestAccessToken() {
         String credentials = clientId + ":" + clientSecret;
         String encoded = Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
 
@@ -43,17 +128,31 @@ public class FatSecretClient {
         ResponseEntity<Map> response = restTemplate.exchange(TOKEN_URL, HttpMethod.POST, entity, Map.class);
 
         if (response.getBody() != null && response.getBody().get("access_token") != null) {
-            return (String) response.getBody().get("access_token");
+            Object expiresIn = response.getBody().get("expires_in");
+            long ttlSeconds = expiresIn instanceof Number n ? n.longValue() : DEFAULT_TOKEN_TTL_SECONDS;
+            return new CachedToken((String) response.getBody().get("access_token"),
+                    System.currentTimeMillis() + ttlSeconds * 1000);
         } else {
             throw new RuntimeException("❌ Could not obtain access token");
         }
     }
 
-    /** Step 2️⃣: Search food AND get micronutrients (GÜNCELLENDİ) */
-    public Map<String, Object> getFoodNutrition(String query) {
+    public FatSecretTokenStatsResponse tokenStats() {
+        CachedToken token = cachedToken;
+        FatSecretTokenStatsResponse stats = new FatSecretTokenStatsResponse();
+        stats.setCached(token != null);
+        stats.setExpiresAt(token != null ? Instant.ofEpochMilli(token.expiresAtMillis()) : null);
+        stats.setHits(tokenHits.get());
+        stats.setRefreshes(tokenRefreshes.get());
+        stats.setRefreshFailures(tokenRefreshFailures.get());
+        return stats;
+    }
+
+    /** Step 2️⃣: Search food AND get micronutrients; empty when FatSecret has no match */
+    public Optional<NutritionFacts> getFoodNutrition(String query) {
         String token = getAccessToken();
 
-        // --- BÖLÜM 1: ORİJİNAL 'foods.search' ÇAĞRISI (DEĞİŞTİRİLMEDİ) ---
+        // --- BÖLÜM 1: 'foods.search' ÇAĞRISI ---
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
 
@@ -64,138 +163,95 @@ public class FatSecretClient {
                 .queryParam("max_results", 1);
 
         HttpEntity<Void> entity = new HttpEntity<>(headers);
-        ResponseEntity<Map> response = restTemplate.exchange(
+        FoodSearchResponse response = restTemplate.exchange(
                 builder.toUriString(),
                 HttpMethod.GET,
                 entity,
-                Map.class
-        );
+                FoodSearchResponse.class
+        ).getBody();
 
-        if (response.getBody() == null || !response.getBody().containsKey("foods")) {
-            return Map.of("error", "No food data returned from FatSecret");
+        if (response == null || response.getFoods() == null) {
+            if (response != null && response.getError() != null) {
+                System.err.println("⚠️ FatSecret foods.search error for " + query + ": " + response.getError().getMessage());
+            }
+            return Optional.empty();
         }
 
-        Map foods = (Map) response.getBody().get("foods");
+        List<FoodSearchResponse.Food> foods = response.getFoods().getFood();
         if (foods == null || foods.isEmpty()) {
-            return Map.of("error", "No food found for query: " + query);
+            return Optional.empty();
         }
 
-        Object foodObj = foods.get("food");
-        Map<String, Object> firstFood;
-        if (foodObj instanceof java.util.List) {
-            firstFood = (Map<String, Object>) ((java.util.List<?>) foodObj).get(0);
-        } else if (foodObj instanceof java.util.Map) {
-            firstFood = (Map<String, Object>) foodObj;
-        } else {
-            throw new RuntimeException("Unexpected food data format: " + foodObj.getClass());
+        FoodSearchResponse.Food firstFood = foods.get(0);
+        String desc = firstFood.getFoodDescription();
+
+        // e.g. "Per 100g - Calories: 52kcal | Fat: 0.17g | Carbs: 13.81g | Protein: 0.26g"
+        NutritionFacts facts = new NutritionFacts(
+                firstFood.getFoodName(),
+                (int) parseNumber(desc, WEIGHT_PATTERN, 100),
+                parseNumber(desc, CALORIES_PATTERN, 0),
+                parseNumber(desc, PROTEIN_PATTERN, 0),
+                parseNumber(desc, FAT_PATTERN, 0),
+                parseNumber(desc, CARBS_PATTERN, 0),
+                0, 0, 0, 0, 0, 0, 0, 0);
+
+        // --- BÖLÜM 2: 'food.get' ÇAĞRISI (MİKROLAR İÇİN) ---
+        if (firstFood.getFoodId() == null) {
+            // food_id yoksa mikrolar olmadan devam et
+            return Optional.of(facts);
         }
-
-        String name = (String) firstFood.get("food_name");
-        String desc = (String) firstFood.get("food_description");
-
-        // --- ORİJİNAL REGEX HESAPLAMALARI (DEĞİŞTİRİLMEDİ) ---
-        int weight = parseInt(desc, "Per (\\d+)g", 100);
-        int calories = parseInt(desc, "Calories: (\\d+)", 0);
-        int protein = parseInt(desc, "Protein: (\\d+)", 0);
-        int fat = parseInt(desc, "Fat: (\\d+)", 0);
-        int carbs = parseInt(desc, "Carbs: (\\d+)", 0);
-
-        // Değişiklik: Map.of() yerine değiştirilebilir bir HashMap başlat
-        Map<String, Object> nutritionMap = new HashMap<>();
-        nutritionMap.put("name", name);
-        nutritionMap.put("weight", weight);
-        nutritionMap.put("calories", calories);
-        nutritionMap.put("protein", protein);
-        nutritionMap.put("fat", fat);
-        nutritionMap.put("carbs", carbs);
-
-        // --- BÖLÜM 2: YENİ 'food.get' ÇAĞRISI (MİKROLAR İÇİN EKLENDİ) ---
         try {
-            String foodId = (String) firstFood.get("food_id");
-            if (foodId == null) {
-                // food_id yoksa mikrolar olmadan devam et
-                return nutritionMap;
-            }
-
-            // Mikroları almak için YENİ API çağrısı
             HttpHeaders microHeaders = new HttpHeaders();
             microHeaders.setBearerAuth(token);
 
             UriComponentsBuilder microBuilder = UriComponentsBuilder.fromHttpUrl(API_URL)
                     .queryParam("method", "food.get")
-                    .queryParam("food_id", foodId)
+                    .queryParam("food_id", firstFood.getFoodId())
                     .queryParam("format", "json");
 
             HttpEntity<Void> microEntity = new HttpEntity<>(microHeaders);
-            ResponseEntity<Map> microResponse = restTemplate.exchange(
+            FoodGetResponse microResponse = restTemplate.exchange(
                     microBuilder.toUriString(),
                     HttpMethod.GET,
                     microEntity,
-                    Map.class
-            );
-
-            if (microResponse.getBody() != null && microResponse.getBody().containsKey("food")) {
-                Map<String, Object> foodDetails = (Map<String, Object>) microResponse.getBody().get("food");
-                Map<String, Object> servings = (Map<String, Object>) foodDetails.get("servings");
-
-                Object servingObj = servings.get("serving");
-                Map<String, Object> firstServing;
-
-                // İstediğiniz gibi: 'serving' dizisinden ilk elemanı al
-                if (servingObj instanceof java.util.List) {
-                    if (!((List<?>) servingObj).isEmpty()) {
-                        firstServing = (Map<String, Object>) ((List<?>) servingObj).get(0);
-                    } else {
-                        throw new RuntimeException("Serving list is empty for food_id: " + foodId);
-                    }
-                } else if (servingObj instanceof java.util.Map) {
-                    firstServing = (Map<String, Object>) servingObj;
-                } else {
-                    throw new RuntimeException("Unexpected serving data format for food_id: " + foodId);
-                }
+                    FoodGetResponse.class
+            ).getBody();
 
-                // İstediğiniz mikroları haritaya ekle (ondalıklı olabilecekleri için Double kullan)
-                nutritionMap.put("vitamin_a", parseDouble(firstServing, "vitamin_a"));
-                nutritionMap.put("vitamin_c", parseDouble(firstServing, "vitamin_c"));
-                nutritionMap.put("sodium", parseDouble(firstServing, "sodium"));
-                nutritionMap.put("saturated_fat", parseDouble(firstServing, "saturated_fat"));
-                nutritionMap.put("potassium", parseDouble(firstServing, "potassium"));
-                nutritionMap.put("cholesterol", parseDouble(firstServing, "cholesterol"));
-                nutritionMap.put("calcium", parseDouble(firstServing, "calcium"));
-                nutritionMap.put("iron", parseDouble(firstServing, "iron"));
+            if (microResponse == null || microResponse.getFood() == null || microResponse.getFood().getServings() == null) {
+                return Optional.of(facts);
+            }
+            List<FoodGetResponse.Serving> servings = microResponse.getFood().getServings().getServing();
+            if (servings == null || servings.isEmpty()) {
+                throw new RuntimeException("Serving list is empty for food_id: " + firstFood.getFoodId());
             }
 
+            // 'serving' dizisinden ilk elemanı al
+            FoodGetResponse.Serving serving = servings.get(0);
+            return Optional.of(facts.withMicronutrients(
+                    serving.getVitaminA(),
+                    serving.getVitaminC(),
+                    serving.getSodium(),
+                    serving.getSaturatedFat(),
+                    serving.getPotassium(),
+                    serving.getCholesterol(),
+                    serving.getCalcium(),
+                    serving.getIron()));
         } catch (Exception e) {
             // İkinci çağrı (mikro) başarısız olursa, en azından makroları döndür
-            System.err.println("⚠️ Could not fetch micronutrients for " + name + ": " + e.getMessage());
+            System.err.println("⚠️ Could not fetch micronutrients for " + facts.name() + ": " + e.getMessage());
+            return Optional.of(facts);
         }
-
-        return nutritionMap;
     }
 
-    /** Utility to extract integer values (Orijinal, Değişiklik Yok) */
-    private int parseInt(String text, String regex, int defaultValue) {
-        Pattern pattern = Pattern.compile(regex);
+    /** Utility to extract a number from the food description */
+    private static double parseNumber(String text, Pattern pattern, double defaultValue) {
+        if (text == null) return defaultValue;
         Matcher matcher = pattern.matcher(text);
         if (matcher.find()) {
             try {
-                return Integer.parseInt(matcher.group(1));
+                return Double.parseDouble(matcher.group(1));
             } catch (NumberFormatException ignored) {}
         }
         return defaultValue;
     }
-
-    /** YENİ Utility: API yanıtındaki String sayıları güvenle Double'a çevirir */
-    private double parseDouble(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) {
-            return 0.0;
-        }
-        try {
-            // API bazen "0", bazen "0.00" döndürebilir, Double.parseDouble ikisini de işler
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            return 0.0;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,12 @@
+package heatH.heatHBack.model.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/** FatSecret reports API errors in the body of a 200 response. */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FatSecretError {
+    private Integer code;
+    private String message;
+}
@@ -0,0 +1,48 @@
+package heatH.heatHBack.model.client;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/** Body of a FatSecret food.get call; only the micronutrients we store are mapped. */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FoodGetResponse {
+    private Food food;
+    private FatSecretError error;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Food {
+        @JsonProperty("food_id")
+        private String foodId;
+        private Servings servings;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Servings {
+        @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+        private List<Serving> serving;
+    }
+
+    // FatSecret sends numbers as strings ("0.00"); Jackson coerces them, absent values stay 0
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Serving {
+        @JsonProperty("vitamin_a")
+        private double vitaminA;
+        @JsonProperty("vitamin_c")
+        private double vitaminC;
+        private double sodium;
+        @JsonProperty("saturated_fat")
+        private double saturatedFat;
+        private double potassium;
+        private double cholesterol;
+        private double calcium;
+        private double iron;
+    }
+}
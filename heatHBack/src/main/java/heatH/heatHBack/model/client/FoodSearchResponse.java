@@ -0,0 +1,35 @@
+package heatH.heatHBack.model.client;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/** Body of a FatSecret foods.search call. */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FoodSearchResponse {
+    private Foods foods;
+    private FatSecretError error;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Foods {
+        // a single hit comes back as an object instead of a one-element array
+        @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+        private List<Food> food;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Food {
+        @JsonProperty("food_id")
+        private String foodId;
+        @JsonProperty("food_name")
+        private String foodName;
+        @JsonProperty("food_description")
+        private String foodDescription;
+    }
+}
@@ -0,0 +1,8 @@
+package heatH.heatHBack.model.request;
+
+import lombok.Data;
+
+@Data
+public class FollowRequest {
+    private Long userId;
+}
@@ -0,0 +1,19 @@
+package heatH.heatHBack.model.request;
+
+import lombok.Data;
+
+@Data
+public class SearchFilters {
+    private Integer minCalorie;
+    private Integer maxCalorie;
+    private Double maxPrice;
+    private Double minHealthinessScore;
+    private String tag;
+    private String type;
+    private Double minProtein;
+    private Double maxProtein;
+    private Double minCarbs;
+    private Double maxCarbs;
+    private Double minFat;
+    private Double maxFat;
+}
@@ -6,4 +6,6 @@ import lombok.Data;
 public class SemanticSearchRequest {
     private String query;
     private int topK = 5;
-}
\ No newline at end of file
+    private String mode = "semantic";
+    private SearchFilters filters;
+}
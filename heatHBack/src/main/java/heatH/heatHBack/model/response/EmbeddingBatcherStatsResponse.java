@@ -0,0 +1,18 @@
+package heatH.heatHBack.model.response;
+
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class EmbeddingBatcherStatsResponse {
+    private boolean enabled;
+    private int maxBatchSize;
+    private long lingerMillis;
+    private long requests;
+    private long batches;
+    private long failedBatches;
+    private double averageBatchSize;
+    private int largestBatch;
+    private Map<String, Long> batchSizeHistogram;
+}
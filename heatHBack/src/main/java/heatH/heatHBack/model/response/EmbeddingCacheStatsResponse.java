@@ -0,0 +1,13 @@
+package heatH.heatHBack.model.response;
+
+import lombok.Data;
+
+@Data
+public class EmbeddingCacheStatsResponse {
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+}
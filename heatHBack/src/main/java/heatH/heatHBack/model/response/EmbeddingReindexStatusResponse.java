@@ -0,0 +1,23 @@
+package heatH.heatHBack.model.response;
+
+import java.time.LocalDateTime;
+
+import heatH.heatHBack.model.EmbeddingReindexCheckpoint;
+import lombok.Data;
+
+@Data
+public class EmbeddingReindexStatusResponse {
+    private EmbeddingReindexCheckpoint.Status status;
+    private boolean running;
+    private String model;
+    private int dimensions;
+    private long lastRecipeId;
+    private long processedRecipes;
+    private long totalRecipes;
+    private long requests;
+    private double recipesPerMinute;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+    private String lastError;
+}
@@ -0,0 +1,12 @@
+package heatH.heatHBack.model.response;
+
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class EmbeddingVersionReportResponse {
+    private String servingVersion;
+    private Map<String, Long> storedByVersion;
+    private boolean mixed;
+}
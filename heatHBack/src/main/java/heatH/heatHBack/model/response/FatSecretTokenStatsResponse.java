@@ -0,0 +1,14 @@
+package heatH.heatHBack.model.response;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class FatSecretTokenStatsResponse {
+    private boolean cached;
+    private Instant expiresAt;
+    private long hits;
+    private long refreshes;
+    private long refreshFailures;
+}
@@ -0,0 +1,13 @@
+package heatH.heatHBack.model.response;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class FeedPageResponse {
+    private List<FeedResponse> feeds;
+    // pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,14 @@
+package heatH.heatHBack.model.response;
+
+import lombok.Data;
+
+@Data
+public class NutritionCacheStatsResponse {
+    private int memorySize;
+    private int maxMemorySize;
+    private long memoryHits;
+    private long databaseHits;
+    private long apiLookups;
+    private long staleServed;
+    private double hitRate;
+}
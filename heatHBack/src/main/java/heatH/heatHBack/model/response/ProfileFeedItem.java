@@ -0,0 +1,49 @@
+package heatH.heatHBack.model.response;
+
+import java.time.LocalDateTime;
+
+import heatH.heatHBack.model.FeedType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One post on a profile page, read by FeedRepository as a constructor projection: only the
+ * feed columns and the recipe summary the profile grid shows, never the recipe's ingredients
+ * or instructions. The recipe fields are null for posts without a recipe.
+ */
+@Data
+@NoArgsConstructor
+public class ProfileFeedItem {
+    private Long id;
+    private Long userId;
+    private FeedType type;
+    private String text;
+    private String image;
+    private LocalDateTime createdAt;
+    private Integer likeCount;
+    private Integer commentCount;
+    private Long recipeId;
+    private String recipeTitle;
+    private String recipePhoto;
+    private Integer recipeTotalCalorie;
+    private Double recipeHealthinessScore;
+    private boolean likedByCurrentUser;
+
+    public ProfileFeedItem(Long id, Long userId, FeedType type, String text, String image, LocalDateTime createdAt,
+                           Integer likeCount, Integer commentCount, Long recipeId, String recipeTitle,
+                           String recipePhoto, Integer recipeTotalCalorie, Double recipeHealthinessScore) {
+        this.id = id;
+        this.userId = userId;
+        this.type = type;
+        this.text = text;
+        this.image = image;
+        this.createdAt = createdAt;
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+        this.recipeId = recipeId;
+        this.recipeTitle = recipeTitle;
+        this.recipePhoto = recipePhoto;
+        this.recipeTotalCalorie = recipeTotalCalorie;
+        this.recipeHealthinessScore = recipeHealthinessScore;
+    }
+}
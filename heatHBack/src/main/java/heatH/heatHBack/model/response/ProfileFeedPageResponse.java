@@ -0,0 +1,17 @@
+package heatH.heatHBack.model.response;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ProfileFeedPageResponse {
+    private Long userId;
+    private String name;
+    private String surname;
+    private String profilePhoto;
+    private List<ProfileFeedItem> feeds;
+    // pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,23 @@
+package heatH.heatHBack.model.response;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class RecallReportResponse {
+    private int indexSize;
+    private int sampleSize;
+    private int topK;
+    private int m;
+    private int efConstruction;
+    private List<Entry> entries;
+
+    @Data
+    public static class Entry {
+        private int efSearch;
+        private double recall;
+        private double p50Micros;
+        private double p99Micros;
+    }
+}
@@ -0,0 +1,12 @@
+package heatH.heatHBack.model.response;
+
+import heatH.heatHBack.model.RecipeEnrichmentStatus;
+import lombok.Data;
+
+@Data
+public class RecipeEnrichmentStatusResponse {
+    private Long recipeId;
+    private RecipeEnrichmentStatus status;
+    private int attempts;
+    private String lastError;
+}
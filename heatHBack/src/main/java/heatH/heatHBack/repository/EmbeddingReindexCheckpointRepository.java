@@ -0,0 +1,10 @@
+package heatH.heatHBack.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import heatH.heatHBack.model.EmbeddingReindexCheckpoint;
+
+@Repository
+public interface EmbeddingReindexCheckpointRepository extends MongoRepository<EmbeddingReindexCheckpoint, String> {
+}
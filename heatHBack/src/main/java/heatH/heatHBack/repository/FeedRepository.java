@@ -1,13 +1,20 @@
 package heatH.heatHBack.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import heatH.heatHBack.model.Feed;
+import heatH.heatHBack.model.response.ProfileFeedItem;
 
 public interface FeedRepository extends JpaRepository<Feed, Long> {
     List<Feed> findByUserId(Long userId);
@@ -16,5 +23,51 @@ public interface FeedRepository extends JpaRepository<Feed, Long> {
 
     List<Feed> findByRecipeId(Long recipeId);
 
-    Page<Feed> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    // the recipe comes in the same query instead of one select per feed
+    @EntityGraph(attributePaths = "recipe")
+    Slice<Feed> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    // keyset pages over idx_feed_created_at_id; a Slice reads one extra row instead of running a count.
+    // The row-value comparison is a single index bound, where the OR form leaves Postgres a filter.
+    @EntityGraph(attributePaths = "recipe")
+    Slice<Feed> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @EntityGraph(attributePaths = "recipe")
+    @Query("SELECT f FROM Feed f WHERE (f.createdAt, f.id) < (:createdAt, :id) " +
+           "ORDER BY f.createdAt DESC, f.id DESC")
+    Slice<Feed> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "recipe")
+    List<Feed> findByIdIn(Collection<Long> ids);
+
+    // profile pages over idx_feed_user_created_at, selecting only what the profile view shows
+    String PROFILE_ITEM = "SELECT new heatH.heatHBack.model.response.ProfileFeedItem(f.id, f.userId, f.type, f.text, f.image, " +
+            "f.createdAt, f.likeCount, f.commentCount, r.id, r.title, r.photo, r.totalCalorie, r.healthinessScore) " +
+            "FROM Feed f LEFT JOIN f.recipe r ";
+
+    @Query(PROFILE_ITEM + "WHERE f.userId = :userId ORDER BY f.createdAt DESC, f.id DESC")
+    Slice<ProfileFeedItem> findProfilePage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(PROFILE_ITEM + "WHERE f.userId = :userId " +
+           "AND (f.createdAt, f.id) < (:createdAt, :id) " +
+           "ORDER BY f.createdAt DESC, f.id DESC")
+    Slice<ProfileFeedItem> findProfilePageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id, Pageable pageable);
+
+    // pull side of the home timeline: for each followed account that has posts without fan-out, at most
+    // :limit of them from idx_feed_user_fanned_out, so the sort only ever sees accounts * :limit rows
+    String PULLED_FEED_IDS = "SELECT p.id FROM follows fo JOIN users u ON u.id = fo.followee_id " +
+            "CROSS JOIN LATERAL (SELECT f.id, f.created_at FROM feed f " +
+            "WHERE f.user_id = fo.followee_id AND f.fanned_out = false ";
+    String PULLED_FEED_IDS_END = "ORDER BY f.created_at DESC, f.id DESC LIMIT :limit) p " +
+            "WHERE fo.follower_id = :followerId AND u.has_pulled_feeds = true " +
+            "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit";
+
+    @Query(value = PULLED_FEED_IDS + PULLED_FEED_IDS_END, nativeQuery = true)
+    List<Long> findPulledFeedIds(@Param("followerId") Long followerId, @Param("limit") int limit);
+
+    @Query(value = PULLED_FEED_IDS + "AND (f.created_at, f.id) < (:createdAt, :id) " + PULLED_FEED_IDS_END,
+            nativeQuery = true)
+    List<Long> findPulledFeedIdsAfter(@Param("followerId") Long followerId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, @Param("limit") int limit);
 }
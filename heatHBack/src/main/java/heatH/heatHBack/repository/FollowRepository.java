@@ -0,0 +1,16 @@
+package heatH.heatHBack.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import heatH.heatHBack.model.Follow;
+
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+    boolean existsByFollowerIdAndFolloweeId(Long followerId, Long followeeId);
+
+    @Modifying
+    @Query("DELETE FROM Follow f WHERE f.followerId = :followerId AND f.followeeId = :followeeId")
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followeeId") Long followeeId);
+}
@@ -0,0 +1,7 @@
+package heatH.heatHBack.repository;
+
+import heatH.heatHBack.model.IngredientNutrition;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IngredientNutritionRepository extends JpaRepository<IngredientNutrition, String> {
+}
@@ -9,12 +9,21 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface LikeRepository extends JpaRepository<Like, Long> {
     Optional<Like> findByUserAndFeedId(User user, Long feedId);
     long countByFeedId(Long feedId);
+
+    @Query("SELECT l.feed.id FROM Like l WHERE l.user.id = :userId AND l.feed.id IN :feedIds")
+    Set<Long> findLikedFeedIds(@Param("userId") Long userId, @Param("feedIds") Collection<Long> feedIds);
+
+    @Query("SELECT l.feed.id FROM Like l WHERE l.user.username = :username AND l.feed.id IN :feedIds")
+    Set<Long> findLikedFeedIdsByUsername(@Param("username") String username, @Param("feedIds") Collection<Long> feedIds);
+
     @Modifying
     @Query("DELETE FROM Like l WHERE l.feed IN :feeds")
     void deleteAllByFeedIn(@Param("feeds") List<Feed> feeds);
@@ -1,7 +1,9 @@
 package heatH.heatHBack.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import heatH.heatHBack.model.RecipeEmbedding;
@@ -9,5 +11,8 @@ import heatH.heatHBack.model.RecipeEmbedding;
 @Repository
 public interface RecipeEmbeddingRepository extends MongoRepository<RecipeEmbedding, String> {
     Optional<RecipeEmbedding> findByRecipeId(Long recipeId);
+    List<RecipeEmbedding> findAllByRecipeId(Long recipeId);
     List<RecipeEmbedding> findAll();
-}
\ No newline at end of file
+    Stream<RecipeEmbedding> streamAllBy();
+    Stream<RecipeEmbedding> streamByCreatedAtAfter(LocalDateTime createdAt);
+}
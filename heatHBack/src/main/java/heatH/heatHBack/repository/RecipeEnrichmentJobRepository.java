@@ -0,0 +1,37 @@
+package heatH.heatHBack.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import heatH.heatHBack.model.RecipeEnrichmentJob;
+
+public interface RecipeEnrichmentJobRepository extends JpaRepository<RecipeEnrichmentJob, Long> {
+    Optional<RecipeEnrichmentJob> findByRecipeId(Long recipeId);
+
+    void deleteByRecipeId(Long recipeId);
+
+    // SKIP LOCKED lets several app instances poll the same table without handing out a job twice
+    @Query(value = "SELECT * FROM recipe_enrichment_job " +
+            "WHERE status IN ('PENDING', 'RUNNING') AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<RecipeEnrichmentJob> lockDueJobs(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /** Claims up to {@code limit} due jobs, leasing each one until {@code leaseUntil}. */
+    @Transactional
+    default List<RecipeEnrichmentJob> claimDueJobs(int limit, LocalDateTime leaseUntil) {
+        List<RecipeEnrichmentJob> jobs = lockDueJobs(LocalDateTime.now(), limit);
+        for (RecipeEnrichmentJob job : jobs) {
+            job.setStatus(RecipeEnrichmentJob.Status.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setNextAttemptAt(leaseUntil);
+        }
+        return saveAll(jobs);
+    }
+}
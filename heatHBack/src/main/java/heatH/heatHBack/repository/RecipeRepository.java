@@ -2,13 +2,37 @@ package heatH.heatHBack.repository;
 
 import heatH.heatHBack.model.Recipe;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import heatH.heatHBack.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RecipeRepository extends JpaRepository<Recipe, Long>{
     Optional<Recipe> findByTitle(String title);
     Optional<List<Recipe>> findAllByUser(User user);
+
+    @Query("SELECT r.id FROM Recipe r WHERE r.id > :after ORDER BY r.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT DISTINCT r FROM Recipe r LEFT JOIN FETCH r.ingredients WHERE r.id IN :ids")
+    List<Recipe> findAllWithIngredientsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT r FROM Recipe r LEFT JOIN FETCH r.instructions WHERE r.id IN :ids")
+    List<Recipe> findAllWithInstructionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Hibernate cannot fetch two list collections in one query, so the second query fills
+    // the instructions of the entities the first one already loaded into the same session.
+    @Transactional(readOnly = true)
+    default List<Recipe> findAllWithCollectionsByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        List<Recipe> recipes = findAllWithIngredientsByIdIn(ids);
+        findAllWithInstructionsByIdIn(ids);
+        return recipes;
+    }
 }
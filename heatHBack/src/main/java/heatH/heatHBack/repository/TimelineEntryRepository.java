@@ -0,0 +1,59 @@
+package heatH.heatHBack.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import heatH.heatHBack.model.TimelineEntry;
+
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    Slice<TimelineEntry> findByUserIdOrderByCreatedAtDescFeedIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT t FROM TimelineEntry t WHERE t.userId = :userId " +
+           "AND (t.createdAt, t.feedId) < (:createdAt, :feedId) " +
+           "ORDER BY t.createdAt DESC, t.feedId DESC")
+    Slice<TimelineEntry> findPageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("feedId") Long feedId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT INTO home_timeline (user_id, feed_id, author_id, created_at) " +
+            "VALUES (:userId, :feedId, :authorId, :createdAt) ON CONFLICT (user_id, feed_id) DO NOTHING",
+            nativeQuery = true)
+    int insertEntry(@Param("userId") Long userId, @Param("feedId") Long feedId,
+                    @Param("authorId") Long authorId, @Param("createdAt") LocalDateTime createdAt);
+
+    // the whole fan-out is one statement; followers never pass through the application
+    @Modifying
+    @Query(value = "INSERT INTO home_timeline (user_id, feed_id, author_id, created_at) " +
+            "SELECT f.follower_id, :feedId, :authorId, :createdAt FROM follows f WHERE f.followee_id = :authorId " +
+            "ON CONFLICT (user_id, feed_id) DO NOTHING",
+            nativeQuery = true)
+    int fanOutToFollowers(@Param("feedId") Long feedId, @Param("authorId") Long authorId,
+                          @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query(value = "INSERT INTO home_timeline (user_id, feed_id, author_id, created_at) " +
+            "SELECT :userId, f.id, f.user_id, f.created_at FROM feed f WHERE f.user_id = :authorId AND f.fanned_out = true " +
+            "ORDER BY f.created_at DESC LIMIT :limit ON CONFLICT (user_id, feed_id) DO NOTHING",
+            nativeQuery = true)
+    int backfill(@Param("userId") Long userId, @Param("authorId") Long authorId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.userId = :userId AND t.authorId = :authorId")
+    int deleteByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.feedId IN :feedIds")
+    int deleteByFeedIdIn(@Param("feedIds") Collection<Long> feedIds);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
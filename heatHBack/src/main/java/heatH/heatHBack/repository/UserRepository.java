@@ -2,6 +2,9 @@ package heatH.heatHBack.repository;
 
 import heatH.heatHBack.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +13,12 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = COALESCE(u.followerCount, 0) + :delta WHERE u.id = :userId")
+    int adjustFollowerCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.hasPulledFeeds = true WHERE u.id = :userId")
+    int markHasPulledFeeds(@Param("userId") Long userId);
 }
@@ -2,125 +2,181 @@ package heatH.heatHBack.service.implementation;
 
 import heatH.heatHBack.model.Ingredients;
 import heatH.heatHBack.model.MeasurementTypes;
-import heatH.heatHBack.model.client.FatSecretClient;
-import lombok.RequiredArgsConstructor;
+import heatH.heatHBack.model.NutritionData;
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.NutritionProfile;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-@RequiredArgsConstructor
 public class CalorieService {
 
-    private final FatSecretClient fatSecretClient;
+    private final IngredientNutritionCache nutritionCache;
+    private final ExecutorService lookupExecutor;
+    private final int perRecipeConcurrency;
+    private final long lookupTimeoutMillis;
 
-    public Integer calculateCalorie(List<Ingredients> ingredients) {
-        if (ingredients == null || ingredients.isEmpty()) {
-            return 0;
-        }
-
-        return ingredients.stream()
-                .mapToInt(ingredient -> {
-                    try {
-                        Map<String, Object> nutrition = fatSecretClient.getFoodNutrition(ingredient.getName());
-
-                        if (nutrition.containsKey("error")) {
-                            System.err.println("⚠️ FatSecret lookup failed for " + ingredient.getName());
-                            return 0;
-                        }
-
-                        int baseCalories = (int) nutrition.getOrDefault("calories", 0);
-                        // baseWeight is usually 100g or the serving size in grams provided by API
-                        int baseWeight = (int) nutrition.getOrDefault("weight", 100);
-
-                        // --- CHANGED HERE ---
-                        // Convert the unit quantity to grams using the Enum
-                        MeasurementTypes type = ingredient.getType() != null ? ingredient.getType() : MeasurementTypes.GRAM;
-                        double quantityInGrams = type.toGrams(ingredient.getQuantity() != null ? ingredient.getQuantity() : 0);
-
-                        // Scale calories: (Calories / BaseWeight) * ActualGrams
-                        if (baseWeight == 0) baseWeight = 100; // Prevent division by zero
-                        double scaledCalories = (baseCalories * (quantityInGrams / (double) baseWeight));
-
-                        return (int) Math.round(scaledCalories);
-
-                    } catch (Exception e) {
-                        System.err.println("❌ Error fetching nutrition for ingredient " + ingredient.getName() + ": " + e.getMessage());
-                        return 0;
-                    }
-                })
-                .sum();
+    public CalorieService(IngredientNutritionCache nutritionCache) {
+        this(nutritionCache, 16, 4, 5000);
     }
 
-    public Map<String, Double> calculateMacronutrients(List<Ingredients> ingredients) {
-        Map<String, Double> totals = new HashMap<>();
-
-        // Initialize totals
-        String[] keys = {
-                "carbs", "fat", "protein", "vitamin_a", "vitamin_c",
-                "sodium", "saturated_fat", "potassium", "cholesterol",
-                "calcium", "iron"
-        };
-        for (String key : keys) totals.put(key, 0.0);
-
-        if (ingredients == null || ingredients.isEmpty()) {
-            return totals;
-        }
-
-        for (Ingredients ingredient : ingredients) {
-            try {
-                Map<String, Object> nutrition = fatSecretClient.getFoodNutrition(ingredient.getName());
+    @Autowired
+    public CalorieService(IngredientNutritionCache nutritionCache,
+                          @Value("${nutrition-lookup.pool-size:16}") int poolSize,
+                          @Value("${nutrition-lookup.per-recipe-concurrency:4}") int perRecipeConcurrency,
+                          @Value("${nutrition-lookup.timeout-ms:5000}") long lookupTimeoutMillis) {
+        this.nutritionCache = nutritionCache;
+        this.perRecipeConcurrency = Math.max(1, perRecipeConcurrency);
+        this.lookupTimeoutMillis = lookupTimeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.lookupExecutor = Executors.newFixedThreadPool(Math.max(1, poolSize), runnable -> {
+            Thread thread = new Thread(runnable, "nutrition-lookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-                if (nutrition.containsKey("error")) {
-                    System.err.println("⚠️ FatSecret lookup failed for : " + ingredient.getName());
-                    continue;
-                }
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
 
-                // --- CHANGED HERE ---
-                // 1. Calculate the actual weight in grams based on the Unit Type
+    /**
+     * Resolves every ingredient exactly once and derives calories, macros, micros and the
+     * per-ingredient breakdown from that single lookup. An ingredient that cannot be resolved
+     * contributes nothing, the rest of the recipe is still counted.
+     * Lookups run concurrently, but results are summed in ingredient order so the totals
+     * do not depend on which lookup finished first.
+     */
+    public NutritionProfile calculateNutritionProfile(List<Ingredients> ingredients) {
+        NutrientTotals totals = new NutrientTotals();
+        int totalCalorie = 0;
+        List<NutritionProfile.IngredientBreakdown> breakdown = new ArrayList<>();
+
+        if (ingredients != null) {
+            List<CompletableFuture<Optional<NutritionFacts>>> lookups = resolveAll(ingredients);
+            for (int index = 0; index < ingredients.size(); index++) {
+                Ingredients ingredient = ingredients.get(index);
+                NutritionProfile.IngredientBreakdown item = new NutritionProfile.IngredientBreakdown();
+                item.setName(ingredient.getName());
+
+                // Convert the unit quantity to grams using the Enum
                 MeasurementTypes type = ingredient.getType() != null ? ingredient.getType() : MeasurementTypes.GRAM;
                 double quantityInGrams = type.toGrams(ingredient.getQuantity() != null ? ingredient.getQuantity() : 0);
-
-                // 2. Get the base weight from API (usually 100g)
-                int baseWeight = ((Number) nutrition.getOrDefault("weight", 100)).intValue();
-
-                if (baseWeight == 0) {
-                    System.err.println("⚠️ Base weight is 0 for " + ingredient.getName() + ", skipping.");
-                    continue;
+                item.setGrams(quantityInGrams);
+
+                try {
+                    Optional<NutritionFacts> nutrition = lookups.get(index).join();
+
+                    if (nutrition.isEmpty()) {
+                        System.err.println("⚠️ FatSecret lookup failed for " + ingredient.getName());
+                    } else {
+                        NutritionFacts facts = nutrition.get();
+                        // weight is usually 100g or the serving size in grams provided by API
+                        int baseWeight = facts.weight() == 0 ? 100 : facts.weight(); // Prevent division by zero
+
+                        // e.g. if user has 200g flour and base is 100g, factor is 2.0
+                        double weightFactor = quantityInGrams / (double) baseWeight;
+
+                        int calories = (int) Math.round(facts.calories() * weightFactor);
+                        totalCalorie += calories;
+                        totals.add(facts, weightFactor);
+
+                        item.setResolved(true);
+                        item.setCalories(calories);
+                        item.setCarbs(round2(facts.carbs() * weightFactor));
+                        item.setFat(round2(facts.fat() * weightFactor));
+                        item.setProtein(round2(facts.protein() * weightFactor));
+                    }
+                } catch (Exception e) {
+                    System.err.println("❌ Error fetching nutrition for ingredient " + ingredient.getName() + ": " + e.getMessage());
                 }
+                breakdown.add(item);
+            }
+        }
 
-                // 3. Calculate the factor (e.g., if user has 200g flour and base is 100g, factor is 2.0)
-                double weightFactor = quantityInGrams / (double) baseWeight;
-
-                // 4. Update all nutrients using the weight factor
-                // Helper to simplify fetching and adding
-                updateTotal(totals, nutrition, "carbs", weightFactor);
-                updateTotal(totals, nutrition, "fat", weightFactor);
-                updateTotal(totals, nutrition, "protein", weightFactor);
-                updateTotal(totals, nutrition, "vitamin_a", weightFactor);
-                updateTotal(totals, nutrition, "vitamin_c", weightFactor);
-                updateTotal(totals, nutrition, "sodium", weightFactor);
-                updateTotal(totals, nutrition, "saturated_fat", weightFactor);
-                updateTotal(totals, nutrition, "potassium", weightFactor);
-                updateTotal(totals, nutrition, "cholesterol", weightFactor);
-                updateTotal(totals, nutrition, "calcium", weightFactor);
-                updateTotal(totals, nutrition, "iron", weightFactor);
-
-            } catch (Exception e) {
-                System.err.println("❌ Error fetching nutrients for ingredient " + ingredient.getName() + ": " + e.getMessage());
+        NutritionData nutritionData = new NutritionData();
+        nutritionData.setCarbs(round2(totals.carbs));
+        nutritionData.setFat(round2(totals.fat));
+        nutritionData.setProtein(round2(totals.protein));
+        nutritionData.setVitaminA(round2(totals.vitaminA));
+        nutritionData.setVitaminC(round2(totals.vitaminC));
+        nutritionData.setSodium(round2(totals.sodium));
+        nutritionData.setSaturatedFat(round2(totals.saturatedFat));
+        nutritionData.setPotassium(round2(totals.potassium));
+        nutritionData.setCholesterol(round2(totals.cholesterol));
+        nutritionData.setCalcium(round2(totals.calcium));
+        nutritionData.setIron(round2(totals.iron));
+
+        NutritionProfile profile = new NutritionProfile();
+        profile.setTotalCalorie(totalCalorie);
+        profile.setNutritionData(nutritionData);
+        profile.setIngredients(breakdown);
+        return profile;
+    }
+
+    /**
+     * Starts one lookup per ingredient, with at most perRecipeConcurrency of this recipe's
+     * lookups in flight at once. A lookup that exceeds the timeout completes empty and
+     * frees its slot. How many calls reach FatSecret at once is capped inside IngredientNutritionCache.
+     */
+    private List<CompletableFuture<Optional<NutritionFacts>>> resolveAll(List<Ingredients> ingredients) {
+        Semaphore recipePermits = new Semaphore(perRecipeConcurrency);
+        List<CompletableFuture<Optional<NutritionFacts>>> lookups = new ArrayList<>(ingredients.size());
+        for (Ingredients ingredient : ingredients) {
+            try {
+                recipePermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while resolving ingredients", e);
             }
+            CompletableFuture<Optional<NutritionFacts>> lookup;
+            try {
+                lookup = CompletableFuture
+                        .supplyAsync(() -> nutritionCache.getFoodNutrition(ingredient.getName()), lookupExecutor)
+                        .completeOnTimeout(Optional.empty(), lookupTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                recipePermits.release();
+                throw e;
+            }
+            lookup.whenComplete((result, error) -> recipePermits.release());
+            lookups.add(lookup);
         }
+        return lookups;
+    }
 
-        // Round to 2 decimal places
-        totals.replaceAll((k, v) -> Math.round(v * 100.0) / 100.0);
-        return totals;
+    private static final class NutrientTotals {
+        double carbs, fat, protein, vitaminA, vitaminC, sodium, saturatedFat, potassium, cholesterol, calcium, iron;
+
+        void add(NutritionFacts facts, double factor) {
+            carbs += facts.carbs() * factor;
+            fat += facts.fat() * factor;
+            protein += facts.protein() * factor;
+            vitaminA += facts.vitaminA() * factor;
+            vitaminC += facts.vitaminC() * factor;
+            sodium += facts.sodium() * factor;
+            saturatedFat += facts.saturatedFat() * factor;
+            potassium += facts.potassium() * factor;
+            cholesterol += facts.cholesterol() * factor;
+            calcium += facts.calcium() * factor;
+            iron += facts.iron() * factor;
+        }
     }
 
-    // Helper method to keep the code clean
-    private void updateTotal(Map<String, Double> totals, Map<String, Object> nutrition, String key, double factor) {
-        double baseValue = ((Number) nutrition.getOrDefault(key, 0.0)).doubleValue();
-        totals.put(key, totals.get(key) + (baseValue * factor));
+    // Round to 2 decimal places
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
     }
-}
\ No newline at end of file
+}
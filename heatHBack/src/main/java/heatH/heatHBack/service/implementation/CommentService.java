@@ -30,6 +30,7 @@ public class CommentService {
     private final FeedRepository feedRepository;
     private final UserRepository userRepository;
     private final InterestFormRepository interestFormRepository;
+    private final RecentFeedWindow recentFeedWindow;
 
     public void commentFeed(CommentRequest request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -46,6 +47,7 @@ public class CommentService {
         int currentComments = feed.getCommentCount() != null ? feed.getCommentCount() : 0;
         feed.setCommentCount(currentComments +1);
         feedRepository.save(feed);
+        recentFeedWindow.updateCounts(feed.getId(), feed.getLikeCount(), feed.getCommentCount());
     }
 
     public void deleteCommentFeed(CommentDeleteRequest request) {
@@ -55,6 +57,7 @@ public class CommentService {
         commentRepository.delete(comment);
         feed.setCommentCount(feed.getCommentCount()-1);
         feedRepository.save(feed);
+        recentFeedWindow.updateCounts(feed.getId(), feed.getLikeCount(), feed.getCommentCount());
     }
 
     public List<CommentResponse> getFeedComments(Long feedId) {
@@ -0,0 +1,199 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.response.EmbeddingBatcherStatsResponse;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Coalesces concurrent embedding requests into batched OpenAI /embeddings calls.
+ * The first request of a batch waits at most lingerMillis for others to join, and a
+ * batch is sent as soon as it reaches maxBatchSize. Identical texts in one batch are
+ * embedded once. Each caller's future completes with its own vector.
+ */
+@Service
+public class EmbeddingBatcher {
+
+    // upper bounds of the histogram buckets; the last bucket takes everything larger
+    private static final int[] BUCKET_BOUNDS = {1, 2, 4, 8, 16, 32, 64};
+
+    private record Pending(String text, CompletableFuture<double[]> result) {}
+
+    private final OpenAIService openAIService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Duration requestTimeout;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedItems = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+    public EmbeddingBatcher(OpenAIService openAIService,
+                            @Value("${openai.embedding-batch.enabled:true}") boolean enabled,
+                            @Value("${openai.embedding-batch.max-size:64}") int maxBatchSize,
+                            @Value("${openai.embedding-batch.linger-ms:5}") long lingerMillis,
+                            @Value("${openai.embedding-batch.max-concurrent-requests:4}") int maxConcurrentRequests,
+                            @Value("${openai.embedding-batch.request-timeout-ms:10000}") long requestTimeoutMillis) {
+        this.openAIService = openAIService;
+        this.enabled = enabled && maxBatchSize > 1;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        // a hung call would otherwise hold a sender thread forever; with all of them stuck,
+        // search and enrichment both stall
+        this.requestTimeout = Duration.ofMillis(Math.max(1, requestTimeoutMillis));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, maxConcurrentRequests), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        if (this.enabled) this.dispatcher.start();
+    }
+
+    /** Blocking embed; a null timeout waits until the batch call finishes. */
+    public double[] embed(String text, Duration timeout) {
+        if (!enabled) {
+            requests.incrementAndGet();
+            record(1);
+            return openAIService.createEmbedding(text, timeout);
+        }
+        CompletableFuture<double[]> future = submit(text);
+        try {
+            return timeout != null ? future.get(timeout.toMillis(), TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Embedding request timed out after " + timeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for embedding", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        }
+    }
+
+    public double[] embed(String text) {
+        return embed(text, null);
+    }
+
+    public CompletableFuture<double[]> submit(String text) {
+        requests.incrementAndGet();
+        CompletableFuture<double[]> future = new CompletableFuture<>();
+        queue.add(new Pending(text, future));
+        return future;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+
+                List<Pending> batch = new ArrayList<>();
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                senders.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ Embedding batch dispatcher error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        Map<String, List<Pending>> byText = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            byText.computeIfAbsent(pending.text(), t -> new ArrayList<>()).add(pending);
+        }
+        List<String> texts = new ArrayList<>(byText.keySet());
+        record(texts.size());
+        try {
+            List<double[]> embeddings = openAIService.createEmbeddings(texts, requestTimeout);
+            for (int i = 0; i < texts.size(); i++) {
+                for (Pending pending : byText.get(texts.get(i))) {
+                    pending.result().complete(embeddings.get(i));
+                }
+            }
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            for (Pending pending : batch) pending.result().completeExceptionally(e);
+        }
+    }
+
+    private void record(int size) {
+        batches.incrementAndGet();
+        batchedItems.addAndGet(size);
+        largestBatch.accumulateAndGet(size, Math::max);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && size > BUCKET_BOUNDS[bucket]) bucket++;
+        histogram.incrementAndGet(bucket);
+    }
+
+    public EmbeddingBatcherStatsResponse stats() {
+        EmbeddingBatcherStatsResponse stats = new EmbeddingBatcherStatsResponse();
+        stats.setEnabled(enabled);
+        stats.setMaxBatchSize(maxBatchSize);
+        stats.setLingerMillis(TimeUnit.NANOSECONDS.toMillis(lingerNanos));
+        stats.setRequests(requests.get());
+        long b = batches.get();
+        stats.setBatches(b);
+        stats.setFailedBatches(failedBatches.get());
+        stats.setAverageBatchSize(b == 0 ? 0.0 : (double) batchedItems.get() / b);
+        stats.setLargestBatch(largestBatch.get());
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        int lower = 1;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            buckets.put(lower == BUCKET_BOUNDS[i] ? String.valueOf(lower) : lower + "-" + BUCKET_BOUNDS[i], histogram.get(i));
+            lower = BUCKET_BOUNDS[i] + 1;
+        }
+        buckets.put(lower + "+", histogram.get(BUCKET_BOUNDS.length));
+        stats.setBatchSizeHistogram(buckets);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdown();
+        RuntimeException closed = new RuntimeException("Embedding batcher is shutting down");
+        Pending pending;
+        while ((pending = queue.poll()) != null) pending.result().completeExceptionally(closed);
+    }
+}
@@ -0,0 +1,360 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.EmbeddingReindexCheckpoint;
+import heatH.heatHBack.model.EmbeddingVersion;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.RecipeEmbedding;
+import heatH.heatHBack.model.response.EmbeddingReindexStatusResponse;
+import heatH.heatHBack.model.response.EmbeddingVersionReportResponse;
+import heatH.heatHBack.repository.EmbeddingReindexCheckpointRepository;
+import heatH.heatHBack.repository.RecipeRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Admin-triggered rebuild of every recipe embedding. Recipes are read from Postgres in id
+ * pages, embedded in batches of batchSize texts per OpenAI request, and written back to Mongo
+ * with one bulk write per page. The checkpoint is saved after every page, so a paused, failed
+ * or interrupted run resumes where it stopped. Requests are spaced to stay within
+ * requestsPerMinute across all in-flight batches.
+ */
+@Service
+public class EmbeddingReindexService {
+
+    static final String CHECKPOINT_ID = "recipe-embeddings";
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BASE_MILLIS = 1000;
+
+    private final RecipeRepository recipeRepository;
+    private final OpenAIService openAIService;
+    private final SemanticSearchService semanticSearchService;
+    private final MongoTemplate mongoTemplate;
+    private final EmbeddingReindexCheckpointRepository checkpointRepository;
+
+    private final int pageSize;
+    private final int batchSize;
+    private final long requestIntervalNanos;
+
+    private final ExecutorService jobExecutor;
+    private final ExecutorService requestPool;
+    private final Object throttleLock = new Object();
+    private long nextRequestAt = 0;
+
+    private volatile boolean running = false;
+    private volatile boolean stopRequested = false;
+    private final AtomicLong runRequests = new AtomicLong();
+
+    public EmbeddingReindexService(RecipeRepository recipeRepository,
+                                   OpenAIService openAIService,
+                                   SemanticSearchService semanticSearchService,
+                                   MongoTemplate mongoTemplate,
+                                   EmbeddingReindexCheckpointRepository checkpointRepository,
+                                   @Value("${embedding-reindex.page-size:1000}") int pageSize,
+                                   @Value("${embedding-reindex.batch-size:100}") int batchSize,
+                                   @Value("${embedding-reindex.requests-per-minute:500}") int requestsPerMinute,
+                                   @Value("${embedding-reindex.max-concurrent-requests:4}") int maxConcurrentRequests) {
+        this.recipeRepository = recipeRepository;
+        this.openAIService = openAIService;
+        this.semanticSearchService = semanticSearchService;
+        this.mongoTemplate = mongoTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.pageSize = Math.max(1, pageSize);
+        this.batchSize = Math.max(1, Math.min(batchSize, 2048)); // OpenAI accepts at most 2048 inputs per request
+        this.requestIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, requestsPerMinute);
+
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedding-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.requestPool = Executors.newFixedThreadPool(Math.max(1, maxConcurrentRequests), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-reindex-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public EmbeddingReindexStatusResponse start(boolean restart) {
+        return start(restart, null, null);
+    }
+
+    /**
+     * Starts the re-index in the background. Resumes from the checkpoint unless {@code restart}
+     * is set or the last run completed; a run for a different version always restarts.
+     * {@code model} and {@code dimensions} default to the serving version. Embeddings of another
+     * version are written next to the serving ones and only go live once the application is
+     * configured for that version, so search keeps working during a migration. Until then the
+     * checkpoint marks the migration: recipes enriched meanwhile are embedded in both versions.
+     */
+    public synchronized EmbeddingReindexStatusResponse start(boolean restart, String model, Integer dimensions) {
+        if (running) throw new RuntimeException("Embedding re-index is already running");
+
+        EmbeddingVersion serving = semanticSearchService.getServingVersion();
+        EmbeddingVersion target = new EmbeddingVersion(
+                model != null && !model.isBlank() ? model : serving.model(),
+                dimensions != null ? dimensions : serving.dimensions());
+        if (target.dimensions() <= 0) throw new RuntimeException("Embedding dimensions must be positive");
+
+        EmbeddingReindexCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_ID).orElse(null);
+        boolean fresh = restart || checkpoint == null
+                || checkpoint.getStatus() == EmbeddingReindexCheckpoint.Status.COMPLETED
+                || !target.model().equals(checkpoint.getModel())
+                || target.dimensions() != checkpoint.getDimensions();
+        if (fresh) {
+            checkpoint = new EmbeddingReindexCheckpoint();
+            checkpoint.setId(CHECKPOINT_ID);
+            checkpoint.setModel(target.model());
+            checkpoint.setDimensions(target.dimensions());
+            checkpoint.setStartedAt(LocalDateTime.now());
+        }
+        checkpoint.setStatus(EmbeddingReindexCheckpoint.Status.RUNNING);
+        checkpoint.setTotalRecipes(recipeRepository.count());
+        checkpoint.setLastError(null);
+        checkpoint.setCompletedAt(null);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+
+        running = true;
+        stopRequested = false;
+        runRequests.set(0);
+        EmbeddingReindexCheckpoint started = checkpoint;
+        jobExecutor.execute(() -> run(started));
+        return toResponse(started);
+    }
+
+    /** Asks the running re-index to stop after the current page; the checkpoint keeps its progress. */
+    public void stop() {
+        if (running) stopRequested = true;
+    }
+
+    public EmbeddingReindexStatusResponse status() {
+        return checkpointRepository.findById(CHECKPOINT_ID)
+                .map(this::toResponse)
+                .orElseGet(EmbeddingReindexStatusResponse::new);
+    }
+
+    private void run(EmbeddingReindexCheckpoint checkpoint) {
+        long start = System.nanoTime();
+        int rejected = 0;
+        EmbeddingVersion target = new EmbeddingVersion(checkpoint.getModel(), checkpoint.getDimensions());
+        boolean live = target.equals(semanticSearchService.getServingVersion());
+        try {
+            mongoTemplate.indexOps(RecipeEmbedding.class).ensureIndex(new Index().on("recipeId", Sort.Direction.ASC));
+
+            List<Long> ids;
+            do {
+                if (stopRequested) {
+                    checkpoint.setStatus(EmbeddingReindexCheckpoint.Status.PAUSED);
+                    System.out.println("⚠️ Embedding re-index paused after recipe " + checkpoint.getLastRecipeId());
+                    return;
+                }
+                ids = recipeRepository.findIdsAfter(checkpoint.getLastRecipeId(), PageRequest.of(0, pageSize));
+                if (ids.isEmpty()) break;
+
+                List<Recipe> recipes = new ArrayList<>(recipeRepository.findAllWithIngredientsByIdIn(ids));
+                recipes.sort(Comparator.comparing(Recipe::getId));
+                Map<Long, double[]> embeddings = embedPage(recipes, target);
+                writePage(embeddings, target, live);
+                if (live) rejected += embeddings.size() - semanticSearchService.indexEmbeddings(embeddings);
+
+                checkpoint.setLastRecipeId(ids.get(ids.size() - 1));
+                checkpoint.setProcessedRecipes(checkpoint.getProcessedRecipes() + embeddings.size());
+                checkpoint.setRequests(checkpoint.getRequests() + runRequests.getAndSet(0));
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+            } while (ids.size() == pageSize);
+
+            checkpoint.setStatus(EmbeddingReindexCheckpoint.Status.COMPLETED);
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            System.out.println("✅ Re-indexed " + checkpoint.getProcessedRecipes() + " recipe embeddings in "
+                    + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) + " s");
+            // vectors of another dimension (new model) could not go into the live index
+            if (rejected > 0) semanticSearchService.rebuildVectorIndex();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            checkpoint.setStatus(EmbeddingReindexCheckpoint.Status.FAILED);
+            checkpoint.setLastError(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+            System.err.println("❌ Embedding re-index failed after recipe " + checkpoint.getLastRecipeId() + ": " + checkpoint.getLastError());
+        } finally {
+            checkpoint.setRequests(checkpoint.getRequests() + runRequests.getAndSet(0));
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            try {
+                checkpointRepository.save(checkpoint);
+            } catch (Exception e) {
+                System.err.println("❌ Could not save embedding re-index checkpoint: " + e.getMessage());
+            }
+            running = false;
+        }
+    }
+
+    // batches of one page are sent concurrently; the throttle keeps them within the request budget
+    private Map<Long, double[]> embedPage(List<Recipe> recipes, EmbeddingVersion target) {
+        List<CompletableFuture<List<double[]>>> batches = new ArrayList<>();
+        for (int from = 0; from < recipes.size(); from += batchSize) {
+            List<String> texts = recipes.subList(from, Math.min(from + batchSize, recipes.size())).stream()
+                    .map(SemanticSearchService::embeddingText)
+                    .toList();
+            batches.add(CompletableFuture.supplyAsync(() -> embedBatch(texts, target), requestPool));
+        }
+        Map<Long, double[]> embeddings = new LinkedHashMap<>();
+        int index = 0;
+        for (CompletableFuture<List<double[]>> batch : batches) {
+            for (double[] embedding : batch.join()) {
+                embeddings.put(recipes.get(index++).getId(), embedding);
+            }
+        }
+        return embeddings;
+    }
+
+    private List<double[]> embedBatch(List<String> texts, EmbeddingVersion target) {
+        for (int attempt = 1; ; attempt++) {
+            throttle();
+            runRequests.incrementAndGet();
+            try {
+                return openAIService.createEmbeddings(texts, null, target);
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) throw e;
+                long delay = RETRY_BASE_MILLIS << (attempt - 1);
+                System.err.println("⚠️ Embedding batch failed (attempt " + attempt + "), retrying in " + delay + " ms: " + e.getMessage());
+                sleep(Duration.ofMillis(delay));
+            }
+        }
+    }
+
+    /**
+     * Replaces the page's documents of the target version; documents of other versions are left
+     * alone, so the serving version stays intact while a migration runs. Unversioned documents
+     * count as the serving version. Recipes with duplicate documents end up with exactly one.
+     */
+    private void writePage(Map<Long, double[]> embeddings, EmbeddingVersion target, boolean live) {
+        if (embeddings.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<RecipeEmbedding> documents = new ArrayList<>(embeddings.size());
+        embeddings.forEach((recipeId, embedding) -> {
+            RecipeEmbedding document = new RecipeEmbedding(recipeId, embedding, target);
+            document.setCreatedAt(now);
+            documents.add(document);
+        });
+        Criteria sameVersion = versionCriteria(target, live);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, RecipeEmbedding.class);
+        bulk.remove(new Query(new Criteria().andOperator(Criteria.where("recipeId").in(embeddings.keySet()), sameVersion)));
+        bulk.insert(documents);
+        bulk.execute();
+    }
+
+    /** How many stored embeddings there are of each version, and whether more than one version exists. */
+    public EmbeddingVersionReportResponse versionReport() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("model", "dimensions").count().as("count"));
+        Map<String, Long> byVersion = new TreeMap<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, RecipeEmbedding.class, Document.class).getMappedResults()) {
+            Document key = group.get("_id", Document.class);
+            String model = key != null ? key.getString("model") : null;
+            Object dimensions = key != null ? key.get("dimensions") : null;
+            byVersion.merge(model == null || dimensions == null ? "unversioned" : model + "/" + dimensions,
+                    ((Number) group.get("count")).longValue(), Long::sum);
+        }
+        EmbeddingVersion serving = semanticSearchService.getServingVersion();
+        EmbeddingVersionReportResponse report = new EmbeddingVersionReportResponse();
+        report.setServingVersion(serving.key());
+        report.setStoredByVersion(byVersion);
+        report.setMixed(byVersion.size() > 1);
+        return report;
+    }
+
+    /** Deletes every stored embedding that is not of the serving version; the last step of a migration. */
+    public synchronized long purgeOtherVersions() {
+        if (running) throw new RuntimeException("Embedding re-index is running, purge after it finishes");
+        Criteria serving = versionCriteria(semanticSearchService.getServingVersion(), true);
+        long deleted = mongoTemplate.remove(new Query(new Criteria().norOperator(serving)), RecipeEmbedding.class)
+                .getDeletedCount();
+        System.out.println("✅ Deleted " + deleted + " embeddings of other versions than " + semanticSearchService.getServingVersion().key());
+        return deleted;
+    }
+
+    // unversioned documents are matched by vector length and only count as the serving version
+    private static Criteria versionCriteria(EmbeddingVersion version, boolean includeUnversioned) {
+        Criteria versioned = Criteria.where("model").is(version.model()).and("dimensions").is(version.dimensions());
+        if (!includeUnversioned) return versioned;
+        Criteria unversioned = Criteria.where("model").exists(false).and("embedding").size(version.dimensions());
+        return new Criteria().orOperator(versioned, unversioned);
+    }
+
+    private void throttle() {
+        long wait;
+        synchronized (throttleLock) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextRequestAt);
+            nextRequestAt = slot + requestIntervalNanos;
+            wait = slot - now;
+        }
+        if (wait > 0) sleep(Duration.ofNanos(wait));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while re-indexing embeddings", e);
+        }
+    }
+
+    private EmbeddingReindexStatusResponse toResponse(EmbeddingReindexCheckpoint checkpoint) {
+        EmbeddingReindexStatusResponse response = new EmbeddingReindexStatusResponse();
+        // a RUNNING checkpoint without a live run was left behind by a restart; it resumes like a paused one
+        response.setStatus(checkpoint.getStatus() == EmbeddingReindexCheckpoint.Status.RUNNING && !running
+                ? EmbeddingReindexCheckpoint.Status.PAUSED : checkpoint.getStatus());
+        response.setRunning(running);
+        response.setModel(checkpoint.getModel());
+        response.setDimensions(checkpoint.getDimensions());
+        response.setLastRecipeId(checkpoint.getLastRecipeId());
+        response.setProcessedRecipes(checkpoint.getProcessedRecipes());
+        response.setTotalRecipes(checkpoint.getTotalRecipes());
+        response.setRequests(checkpoint.getRequests());
+        response.setStartedAt(checkpoint.getStartedAt());
+        response.setUpdatedAt(checkpoint.getUpdatedAt());
+        response.setCompletedAt(checkpoint.getCompletedAt());
+        response.setLastError(checkpoint.getLastError());
+        if (checkpoint.getStartedAt() != null && checkpoint.getUpdatedAt() != null) {
+            long seconds = Duration.between(checkpoint.getStartedAt(), checkpoint.getUpdatedAt()).toSeconds();
+            response.setRecipesPerMinute(seconds == 0 ? 0.0 : checkpoint.getProcessedRecipes() * 60.0 / seconds);
+        }
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        jobExecutor.shutdown();
+        requestPool.shutdown();
+    }
+}
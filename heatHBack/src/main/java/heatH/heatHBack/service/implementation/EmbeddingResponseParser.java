@@ -0,0 +1,106 @@
+package heatH.heatHBack.service.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Streaming decoder for OpenAI /embeddings responses. Vectors are read token by token straight
+ * into primitive arrays, never through a Map or boxed numbers. Both encodings are supported:
+ * a JSON array of floats, and {@code encoding_format=base64} (little-endian float32).
+ */
+public final class EmbeddingResponseParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private EmbeddingResponseParser() {}
+
+    /** Returns the embeddings ordered by their "index" field. */
+    public static List<double[]> parse(byte[] body, int expected) {
+        if (body == null || body.length == 0) throw new RuntimeException("Empty embedding response");
+        double[][] embeddings = new double[expected][];
+        int found = 0;
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new RuntimeException("Malformed embedding response");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("data".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        found = readItem(parser, embeddings, found);
+                    }
+                } else if ("error".equals(field)) {
+                    throw new RuntimeException("OpenAI embedding error: " + errorMessage(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not parse embedding response: " + e.getMessage(), e);
+        }
+        if (found != expected) throw new RuntimeException("Expected " + expected + " embeddings, got " + found);
+        return Arrays.asList(embeddings);
+    }
+
+    private static int readItem(JsonParser parser, double[][] embeddings, int found) throws IOException {
+        int index = found;
+        double[] embedding = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("index".equals(field)) {
+                index = parser.getIntValue();
+            } else if ("embedding".equals(field) && value == JsonToken.VALUE_STRING) {
+                embedding = decodeBase64(parser.getBinaryValue(Base64Variants.MIME_NO_LINEFEEDS));
+            } else if ("embedding".equals(field) && value == JsonToken.START_ARRAY) {
+                embedding = readArray(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (embedding == null) throw new RuntimeException("Embedding item without an embedding");
+        if (index < 0 || index >= embeddings.length) throw new RuntimeException("Unexpected embedding index " + index);
+        embeddings[index] = embedding;
+        return found + 1;
+    }
+
+    // text-embedding-3 vectors have 1536 or 3072 entries; start big enough that most never grow
+    private static double[] readArray(JsonParser parser) throws IOException {
+        double[] values = new double[1536];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = parser.getDoubleValue();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    private static double[] decodeBase64(byte[] packed) {
+        if (packed.length % Float.BYTES != 0) throw new RuntimeException("Base64 embedding is not a float32 array");
+        ByteBuffer buffer = ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN);
+        double[] values = new double[packed.length / Float.BYTES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getFloat(i * Float.BYTES);
+        }
+        return values;
+    }
+
+    private static String errorMessage(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) return parser.getValueAsString();
+        String message = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("message".equals(field)) message = parser.getValueAsString();
+            else parser.skipChildren();
+        }
+        return message;
+    }
+}
@@ -3,10 +3,14 @@ package heatH.heatHBack.service.implementation;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -18,24 +22,35 @@ import org.springframework.web.server.ResponseStatusException;
 
 
 import heatH.heatHBack.model.Feed;
+import heatH.heatHBack.model.FeedCursor;
 import heatH.heatHBack.model.FeedType;
 import heatH.heatHBack.model.Recipe;
 import heatH.heatHBack.model.User;
 import heatH.heatHBack.model.request.FeedRequest;
+import heatH.heatHBack.model.request.FollowRequest;
+import heatH.heatHBack.model.response.FeedPageResponse;
 import heatH.heatHBack.model.response.FeedProfileResponse;
 import heatH.heatHBack.model.response.FeedResponse;
+import heatH.heatHBack.model.response.ProfileFeedItem;
+import heatH.heatHBack.model.response.ProfileFeedPageResponse;
 import heatH.heatHBack.repository.FeedRepository;
 import heatH.heatHBack.repository.LikeRepository;
+import heatH.heatHBack.repository.RecipeRepository;
 import heatH.heatHBack.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class FeedService {
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final FeedRepository feedRepository;
     private final RecipeService recipeService;
     private final LikeRepository likeRepository;
     private final UserRepository userRepository;
+    private final RecipeRepository recipeRepository;
+    private final TimelineService timelineService;
+    private final RecentFeedWindow recentFeedWindow;
     private final GcsService gcsService;
 
 
@@ -73,14 +88,21 @@ public class FeedService {
             default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid feed type");
         }
 
-        return feedRepository.save(feed);
+        // the image upload above stays outside the transaction that saves and fans out the post
+        Feed saved = timelineService.publish(feed, user);
+        recentFeedWindow.push(toResponses(List.of(saved), user, Set.of()).get(0));
+        return saved;
     }
 
     public List<FeedResponse> getRecentFeedsForUser(Long pageNumber) {
         int pageSize = 20;
+        if (pageNumber == 0) {
+            FeedPageResponse hot = hotFirstPage(pageSize);
+            if (hot != null) return hot.getFeeds();
+        }
         Pageable pageable = PageRequest.of(pageNumber.intValue(), pageSize, Sort.by("createdAt").descending());
 
-        Page<Feed> feedPage = feedRepository.findAllByOrderByCreatedAtDesc(pageable);
+        Slice<Feed> feedPage = feedRepository.findAllByOrderByCreatedAtDesc(pageable);
         List<Feed> feeds = feedPage.getContent();
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -88,6 +110,145 @@ public class FeedService {
         User user = userRepository.findByUsername(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        return toResponses(feeds, user);
+    }
+
+    /**
+     * Cursor-paginated recent feed. Each page continues strictly after the last feed of the
+     * previous one, so posts created while the user scrolls never shift items between pages,
+     * and deep pages cost the same as the first.
+     */
+    public FeedPageResponse getRecentFeedsForUser(String cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        Slice<Feed> slice;
+        if (cursor == null || cursor.isBlank()) {
+            FeedPageResponse hot = hotFirstPage(pageable.getPageSize());
+            if (hot != null) return hot;
+            slice = feedRepository.findAllByOrderByCreatedAtDescIdDesc(pageable);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            slice = feedRepository.findPageAfter(after.createdAt(), after.id(), pageable);
+        }
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String email = auth.getName();
+        User user = userRepository.findByUsername(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return toPage(slice, user);
+    }
+
+    /** The current user's home timeline: their own posts and those of the accounts they follow. */
+    public FeedPageResponse getHomeTimeline(String cursor, int limit) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String email = auth.getName();
+        User user = userRepository.findByUsername(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        FeedCursor after = cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
+        return toPage(timelineService.homeTimeline(user, after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))), user);
+    }
+
+    public void follow(FollowRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = userRepository.findByUsername(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        timelineService.follow(user, request.getUserId());
+    }
+
+    public void unfollow(FollowRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = userRepository.findByUsername(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        timelineService.unfollow(user, request.getUserId());
+    }
+
+    /**
+     * The first page of the recent feed from RecentFeedWindow: one query for which of the
+     * feeds the current user liked, none for the feeds or their authors. Reloads the window
+     * when it is cold or expired; returns null when it still cannot answer.
+     */
+    private FeedPageResponse hotFirstPage(int limit) {
+        RecentFeedWindow.Page hot = recentFeedWindow.firstPage(limit);
+        if (hot == null && limit <= recentFeedWindow.maxSize()) {
+            refreshRecentFeedWindow();
+            hot = recentFeedWindow.firstPage(limit);
+        }
+        if (hot == null) return null;
+
+        List<FeedResponse> feeds = hot.feeds();
+        if (!feeds.isEmpty()) {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Set<Long> liked = likeRepository.findLikedFeedIdsByUsername(username,
+                    feeds.stream().map(FeedResponse::getId).toList());
+            feeds.forEach(feed -> feed.setLikedByCurrentUser(liked.contains(feed.getId())));
+        }
+
+        FeedPageResponse page = new FeedPageResponse();
+        page.setFeeds(feeds);
+        page.setHasMore(hot.hasMore());
+        if (hot.hasMore() && !feeds.isEmpty()) {
+            FeedResponse last = feeds.get(feeds.size() - 1);
+            page.setNextCursor(new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return page;
+    }
+
+    private void refreshRecentFeedWindow() {
+        long version = recentFeedWindow.beginRefresh();
+        if (version < 0) return;
+        try {
+            Slice<Feed> newest = feedRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.of(0, recentFeedWindow.maxSize()));
+            // mapping initializes the recipe collections, so the cached entities serialize outside this session
+            recentFeedWindow.fill(version, toResponses(newest.getContent(), null, Set.of()), !newest.hasNext());
+        } catch (RuntimeException e) {
+            recentFeedWindow.abortRefresh();
+            System.err.println("⚠️ Could not load the recent feed window: " + e.getMessage());
+        }
+    }
+
+    private FeedPageResponse toPage(Slice<Feed> slice, User currentUser) {
+        List<Feed> feeds = slice.getContent();
+        FeedPageResponse page = new FeedPageResponse();
+        page.setFeeds(toResponses(feeds, currentUser));
+        page.setHasMore(slice.hasNext());
+        page.setNextCursor(slice.hasNext() && !feeds.isEmpty() ? FeedCursor.after(feeds.get(feeds.size() - 1)).encode() : null);
+        return page;
+    }
+
+    /**
+     * Maps a page of feeds with a fixed number of queries however long the page is: one
+     * for the authors, one for which of the feeds the current user liked, and two that
+     * load the ingredients and instructions of every recipe on the page.
+     */
+    private List<FeedResponse> toResponses(List<Feed> feeds, User currentUser) {
+        if (feeds.isEmpty()) return List.of();
+        Set<Long> liked = likeRepository.findLikedFeedIds(currentUser.getId(),
+                feeds.stream().map(Feed::getId).toList());
+        return toResponses(feeds, null, liked);
+    }
+
+    // knownAuthor, when given, is not looked up again
+    private List<FeedResponse> toResponses(List<Feed> feeds, User knownAuthor, Set<Long> liked) {
+        if (feeds.isEmpty()) return List.of();
+
+        Set<Long> authorIds = feeds.stream().map(Feed::getUserId).collect(Collectors.toSet());
+        Map<Long, User> authors = knownAuthor != null && authorIds.equals(Set.of(knownAuthor.getId()))
+                ? Map.of(knownAuthor.getId(), knownAuthor)
+                : userRepository.findAllById(authorIds).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Long> recipeIds = feeds.stream()
+                .map(Feed::getRecipe)
+                .filter(Objects::nonNull)
+                .map(Recipe::getId)
+                .distinct()
+                .toList();
+        if (!recipeIds.isEmpty()) {
+            // fills the collections of the recipe entities already attached to these feeds
+            recipeRepository.findAllWithCollectionsByIdIn(recipeIds);
+        }
+
         return feeds.stream().map(feed -> {
             Recipe recipe = feed.getRecipe();
             FeedResponse response = new FeedResponse();
@@ -102,18 +263,70 @@ public class FeedService {
             if(feed.getImage() != null) {
                 response.setImage(feed.getImage());
             }
-            User user2 = userRepository.findById(feed.getUserId()).orElseThrow(() -> new RuntimeException("User not found"));
-            response.setName(user2.getName());
-            response.setSurname(user2.getSurname());
-            response.setProfilePhoto(user2.getProfilePhoto());
-            boolean liked = likeRepository.findByUserAndFeedId(user, feed.getId()).isPresent();
-            response.setLikedByCurrentUser(liked);
+            User author = authors.get(feed.getUserId());
+            if (author == null) throw new RuntimeException("User not found");
+            response.setName(author.getName());
+            response.setSurname(author.getSurname());
+            response.setProfilePhoto(author.getProfilePhoto());
+            response.setLikedByCurrentUser(liked.contains(feed.getId()));
 
             return response;
         }).toList();
     }
 
 
+    /** A page of the current user's own posts, newest first. */
+    public ProfileFeedPageResponse getFeedByUser(String cursor, int limit) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String email = auth.getName();
+        User user = userRepository.findByUsername(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return toProfilePage(user, cursor, limit);
+    }
+
+    /** A page of another user's posts, newest first, with likes as seen by the current user. */
+    public ProfileFeedPageResponse getFeedOtherUser(Long userId, String cursor, int limit) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return toProfilePage(user, cursor, limit);
+    }
+
+    /**
+     * Reads one keyset page of a profile as ProfileFeedItem projections, then one query for
+     * which of those posts the current user liked. No Feed or Recipe entities are loaded.
+     */
+    private ProfileFeedPageResponse toProfilePage(User owner, String cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        Slice<ProfileFeedItem> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = feedRepository.findProfilePage(owner.getId(), pageable);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            slice = feedRepository.findProfilePageAfter(owner.getId(), after.createdAt(), after.id(), pageable);
+        }
+
+        List<ProfileFeedItem> items = slice.getContent();
+        if (!items.isEmpty()) {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Set<Long> liked = likeRepository.findLikedFeedIdsByUsername(username,
+                    items.stream().map(ProfileFeedItem::getId).toList());
+            items.forEach(item -> item.setLikedByCurrentUser(liked.contains(item.getId())));
+        }
+
+        ProfileFeedPageResponse page = new ProfileFeedPageResponse();
+        page.setUserId(owner.getId());
+        page.setName(owner.getName());
+        page.setSurname(owner.getSurname());
+        page.setProfilePhoto(owner.getProfilePhoto());
+        page.setFeeds(items);
+        page.setHasMore(slice.hasNext());
+        if (slice.hasNext() && !items.isEmpty()) {
+            ProfileFeedItem last = items.get(items.size() - 1);
+            page.setNextCursor(new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return page;
+    }
+
     public List<FeedResponse> getFeedByUser() {
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -121,6 +334,8 @@ public class FeedService {
         User user = userRepository.findByUsername(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         List<Feed> feeds = feedRepository.findByUserId(user.getId());
+        Set<Long> liked = feeds.isEmpty() ? Set.of()
+                : likeRepository.findLikedFeedIds(user.getId(), feeds.stream().map(Feed::getId).toList());
 
         return feeds.stream().map(feed -> {
             FeedResponse response = new FeedResponse();
@@ -136,8 +351,7 @@ public class FeedService {
                 response.setImage(feed.getImage());
             }
 
-            boolean liked = likeRepository.findByUserAndFeedId(user, feed.getId()).isPresent();
-            response.setLikedByCurrentUser(liked);
+            response.setLikedByCurrentUser(liked.contains(feed.getId()));
             return response;
         }).toList();
     }
@@ -0,0 +1,441 @@
+package heatH.heatHBack.service.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Hierarchical navigable small world graph over recipe embeddings.
+ * Vectors are normalized on insert, so similarity is a plain dot product.
+ * Deleted recipes are tombstoned: they keep routing searches through the
+ * graph but are never returned. Tombstones are only dropped by {@link #compact()},
+ * which the owner runs once they make up too large a share of the graph.
+ */
+public class HnswIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private record Candidate(int node, float score) {}
+
+    private static final Comparator<Candidate> BEST_FIRST = (a, b) -> Float.compare(b.score, a.score);
+    private static final Comparator<Candidate> WORST_FIRST = (a, b) -> Float.compare(a.score, b.score);
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> nodeByRecipeId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+    private float[] vectors = new float[0];
+    private long[] recipeIds = new long[0];
+    private int[][][] links = new int[0][][];
+    private int dimension = -1;
+    private int size = 0;
+    private int deletedCount = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    // changes made while compact() builds the replacement graph; a null vector is a removal
+    private Map<Long, float[]> compactionJournal;
+
+    public HnswIndex(int m, int efConstruction, long seed) {
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        this.random = new Random(seed);
+    }
+
+    public boolean put(Long recipeId, double[] embedding) {
+        if (embedding == null) return false;
+        float[] vector = new float[embedding.length];
+        for (int i = 0; i < embedding.length; i++) vector[i] = (float) embedding[i];
+        return put(recipeId, vector);
+    }
+
+    /** Adds a recipe to the graph; re-inserting a recipe tombstones its previous node. */
+    public boolean put(Long recipeId, float[] embedding) {
+        if (recipeId == null || embedding == null || embedding.length == 0) return false;
+
+        lock.writeLock().lock();
+        try {
+            if (dimension < 0) {
+                dimension = embedding.length;
+            } else if (embedding.length != dimension) {
+                return false;
+            }
+
+            if (compactionJournal != null) compactionJournal.put(recipeId, embedding.clone());
+
+            Integer previous = nodeByRecipeId.get(recipeId);
+            if (previous != null) markDeleted(previous);
+
+            int node = size++;
+            ensureCapacity(size);
+            recipeIds[node] = recipeId;
+            System.arraycopy(embedding, 0, vectors, node * dimension, dimension);
+            normalize(node);
+            nodeByRecipeId.put(recipeId, node);
+
+            int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) links[node][l] = new int[0];
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return true;
+            }
+
+            float[] query = Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+            int ep = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                ep = greedyClosest(query, ep, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> found = searchLayer(query, ep, efConstruction, l);
+                int[] neighbours = selectNeighbours(found, m);
+                links[node][l] = neighbours;
+                for (int neighbour : neighbours) {
+                    connect(neighbour, node, l);
+                }
+                ep = found.get(0).node();
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long recipeId) {
+        if (recipeId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (compactionJournal != null) compactionJournal.put(recipeId, null);
+            Integer node = nodeByRecipeId.remove(recipeId);
+            if (node != null) markDeleted(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns up to {@code topK} recipe ids, best first, exploring {@code efSearch} candidates on the base layer. */
+    public List<Long> search(float[] query, int topK, int efSearch) {
+        return search(query, topK, efSearch, null);
+    }
+
+    /** Filtered search; nodes rejected by {@code filter} still route the search but are not returned. */
+    public List<Long> search(float[] query, int topK, int efSearch, LongPredicate filter) {
+        lock.readLock().lock();
+        try {
+            if (query == null || entryPoint < 0 || topK <= 0 || query.length != dimension) return List.of();
+
+            float[] q = query.clone();
+            normalize(q);
+
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                ep = greedyClosest(q, ep, l);
+            }
+            List<Candidate> found = searchLayer(q, ep, Math.max(efSearch, topK), 0);
+
+            List<Long> result = new ArrayList<>(Math.min(topK, found.size()));
+            for (Candidate c : found) {
+                if (deleted.get(c.node())) continue;
+                if (filter != null && !filter.test(recipeIds[c.node()])) continue;
+                result.add(recipeIds[c.node()]);
+                if (result.size() == topK) break;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> search(double[] query, int topK, int efSearch) {
+        return search(query, topK, efSearch, null);
+    }
+
+    public List<Long> search(double[] query, int topK, int efSearch, LongPredicate filter) {
+        if (query == null) return List.of();
+        float[] q = new float[query.length];
+        for (int i = 0; i < query.length; i++) q[i] = (float) query[i];
+        return search(q, topK, efSearch, filter);
+    }
+
+    public int liveSize() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** True when tombstones make up at least {@code ratio} of the nodes in the graph. */
+    public boolean needsCompaction(double ratio) {
+        lock.readLock().lock();
+        try {
+            return deletedCount > 0 && deletedCount >= ratio * size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the graph from its live nodes only, dropping every tombstone. The replacement is
+     * built without holding the lock, so searches and writes carry on; writes made meanwhile are
+     * journaled and replayed onto it before it takes over. Returns false if a compaction is
+     * already running.
+     */
+    public boolean compact() {
+        long[] liveIds;
+        float[][] liveVectors;
+        lock.writeLock().lock();
+        try {
+            if (compactionJournal != null) return false;
+            liveIds = new long[size - deletedCount];
+            liveVectors = new float[liveIds.length][];
+            int i = 0;
+            for (int node = 0; node < size; node++) {
+                if (deleted.get(node)) continue;
+                liveIds[i] = recipeIds[node];
+                liveVectors[i++] = Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+            }
+            compactionJournal = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        HnswIndex next = new HnswIndex(m, efConstruction, random.nextLong());
+        for (int i = 0; i < liveIds.length; i++) {
+            next.put(liveIds[i], liveVectors[i]);
+            liveVectors[i] = null;
+        }
+
+        lock.writeLock().lock();
+        try {
+            compactionJournal.forEach((recipeId, vector) -> {
+                if (vector == null) next.remove(recipeId); else next.put(recipeId, vector);
+            });
+            compactionJournal = null;
+            nodeByRecipeId.clear();
+            nodeByRecipeId.putAll(next.nodeByRecipeId);
+            deleted.clear();
+            deleted.or(next.deleted);
+            vectors = next.vectors;
+            recipeIds = next.recipeIds;
+            links = next.links;
+            dimension = next.dimension;
+            size = next.size;
+            deletedCount = next.deletedCount;
+            entryPoint = next.entryPoint;
+            maxLevel = next.maxLevel;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getM() { return m; }
+    public int getEfConstruction() { return efConstruction; }
+
+    private void markDeleted(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : linksAt(current, level)) {
+                float s = similarity(query, neighbour);
+                if (s > best) {
+                    best = s;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /** Best-first search of one layer; returns up to {@code ef} nodes sorted best first. */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        VisitedSet seen = visited.get();
+        seen.reset(size);
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(WORST_FIRST);
+
+        Candidate first = new Candidate(start, similarity(query, start));
+        seen.add(start);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.score() < results.peek().score()) break;
+
+            for (int neighbour : linksAt(current.node(), level)) {
+                if (!seen.add(neighbour)) continue;
+                float s = similarity(query, neighbour);
+                if (results.size() < ef || s > results.peek().score()) {
+                    Candidate c = new Candidate(neighbour, s);
+                    candidates.add(c);
+                    results.add(c);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(BEST_FIRST);
+        return sorted;
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: a candidate is kept only if it is
+     * closer to the base node than to any neighbour already chosen, which keeps links spread
+     * out. Pruned candidates fill any remaining room.
+     */
+    private int[] selectNeighbours(List<Candidate> bestFirst, int limit) {
+        List<Candidate> chosen = new ArrayList<>(limit);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate c : bestFirst) {
+            if (chosen.size() >= limit) break;
+            boolean diverse = true;
+            for (Candidate r : chosen) {
+                if (similarity(c.node(), r.node()) > c.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) chosen.add(c); else pruned.add(c);
+        }
+        for (int i = 0; i < pruned.size() && chosen.size() < limit; i++) {
+            chosen.add(pruned.get(i));
+        }
+
+        int[] result = new int[chosen.size()];
+        for (int i = 0; i < result.length; i++) result[i] = chosen.get(i).node();
+        return result;
+    }
+
+    private void connect(int from, int to, int level) {
+        int[] current = linksAt(from, level);
+        int limit = level == 0 ? maxM0 : m;
+        if (current.length < limit) {
+            int[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = to;
+            links[from][level] = grown;
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int n : current) candidates.add(new Candidate(n, similarity(from, n)));
+        candidates.add(new Candidate(to, similarity(from, to)));
+        candidates.sort(BEST_FIRST);
+        links[from][level] = selectNeighbours(candidates, limit);
+    }
+
+    private int[] linksAt(int node, int level) {
+        int[][] nodeLinks = links[node];
+        return level < nodeLinks.length ? nodeLinks[level] : new int[0];
+    }
+
+    private float similarity(float[] query, int node) {
+        int offset = node * dimension;
+        float dot = 0f;
+        for (int i = 0; i < dimension; i++) dot += query[i] * vectors[offset + i];
+        return dot;
+    }
+
+    private float similarity(int a, int b) {
+        int oa = a * dimension, ob = b * dimension;
+        float dot = 0f;
+        for (int i = 0; i < dimension; i++) dot += vectors[oa + i] * vectors[ob + i];
+        return dot;
+    }
+
+    private void normalize(int node) {
+        int offset = node * dimension;
+        double norm = 0.0;
+        for (int i = 0; i < dimension; i++) norm += vectors[offset + i] * vectors[offset + i];
+        if (norm == 0) return;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) vectors[offset + i] *= inv;
+    }
+
+    private static void normalize(float[] v) {
+        double norm = 0.0;
+        for (float x : v) norm += x * x;
+        if (norm == 0) return;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (nodes <= recipeIds.length) return;
+        int capacity = Math.max(INITIAL_CAPACITY, recipeIds.length * 2);
+        while (capacity < nodes) capacity *= 2;
+        vectors = Arrays.copyOf(vectors, capacity * dimension);
+        recipeIds = Arrays.copyOf(recipeIds, capacity);
+        links = Arrays.copyOf(links, capacity);
+    }
+
+    /** Epoch-stamped visited marks, reused per thread so a search does not allocate a fresh set. */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int epoch = 0;
+
+        void reset(int nodes) {
+            if (marks.length < nodes) {
+                marks = new int[Math.max(nodes, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == epoch) return false;
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.IngredientNutrition;
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.client.FatSecretClient;
+import heatH.heatHBack.model.response.NutritionCacheStatsResponse;
+import heatH.heatHBack.repository.IngredientNutritionRepository;
+
+/**
+ * Two-tier cache in front of FatSecret lookups, keyed by normalized ingredient name:
+ * a bounded in-memory LRU backed by the ingredient_nutrition table. Entries older
+ * than the configured max age are refreshed from FatSecret; if that refresh fails
+ * the stale entry is still served. Failed lookups are never cached. Concurrent misses
+ * on the same key share one lookup instead of each calling FatSecret.
+ */
+@Service
+public class IngredientNutritionCache {
+
+    private record Entry(NutritionFacts facts, LocalDateTime fetchedAt) {}
+
+    private final FatSecretClient fatSecretClient;
+    private final IngredientNutritionRepository repository;
+    private final int maxSize;
+    private final Duration maxAge;
+    private final Semaphore apiPermits;
+    private final long apiPermitTimeoutMillis;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong apiLookups = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, CompletableFuture<Optional<NutritionFacts>>> inFlight = new ConcurrentHashMap<>();
+
+    public IngredientNutritionCache(FatSecretClient fatSecretClient,
+                                    IngredientNutritionRepository repository,
+                                    @Value("${nutrition-cache.max-size:5000}") int maxSize,
+                                    @Value("${nutrition-cache.max-age-days:30}") long maxAgeDays,
+                                    @Value("${nutrition-lookup.max-concurrent-api-calls:8}") int maxConcurrentApiCalls,
+                                    @Value("${nutrition-lookup.timeout-ms:5000}") long apiPermitTimeoutMillis) {
+        this.fatSecretClient = fatSecretClient;
+        this.repository = repository;
+        this.maxSize = Math.max(0, maxSize);
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.apiPermits = new Semaphore(Math.max(1, maxConcurrentApiCalls));
+        this.apiPermitTimeoutMillis = apiPermitTimeoutMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IngredientNutritionCache.this.maxSize;
+            }
+        };
+    }
+
+    /** Nutrition facts of the ingredient, or empty when it could not be resolved. */
+    public Optional<NutritionFacts> getFoodNutrition(String ingredientName) {
+        String key = normalize(ingredientName);
+
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null && isFresh(cached)) {
+            memoryHits.incrementAndGet();
+            return Optional.of(cached.facts());
+        }
+
+        CompletableFuture<Optional<NutritionFacts>> lookup = new CompletableFuture<>();
+        CompletableFuture<Optional<NutritionFacts>> running = inFlight.putIfAbsent(key, lookup);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Optional<NutritionFacts> result = load(key);
+            lookup.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, lookup);
+        }
+    }
+
+    // only one thread per key gets here at a time
+    private Optional<NutritionFacts> load(String key) {
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        // a lookup that finished between the first check and claiming the key already filled it in
+        if (cached != null && isFresh(cached)) {
+            memoryHits.incrementAndGet();
+            return Optional.of(cached.facts());
+        }
+
+        if (cached == null) {
+            Optional<IngredientNutrition> stored = repository.findById(key);
+            if (stored.isPresent()) {
+                cached = new Entry(toFacts(stored.get()), stored.get().getFetchedAt());
+                if (isFresh(cached)) {
+                    databaseHits.incrementAndGet();
+                    remember(key, cached);
+                    return Optional.of(cached.facts());
+                }
+            }
+        }
+
+        Optional<NutritionFacts> fetched = fetchFromApi(key);
+
+        if (fetched.isEmpty()) {
+            if (cached != null) {
+                staleServed.incrementAndGet();
+                System.err.println("⚠️ FatSecret refresh failed for " + key + ", serving nutrition from " + cached.fetchedAt());
+                return Optional.of(cached.facts());
+            }
+            return Optional.empty();
+        }
+
+        IngredientNutrition row = toEntity(key, fetched.get());
+        try {
+            repository.save(row);
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not persist nutrition for " + key + ": " + e.getMessage());
+        }
+        remember(key, new Entry(fetched.get(), row.getFetchedAt()));
+        return fetched;
+    }
+
+    // every FatSecret call in the app goes through here, so this permit pool is the global cap
+    private Optional<NutritionFacts> fetchFromApi(String key) {
+        try {
+            if (!apiPermits.tryAcquire(apiPermitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                System.err.println("⚠️ Too many concurrent FatSecret lookups, skipping " + key);
+                return Optional.empty();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        try {
+            apiLookups.incrementAndGet();
+            return fatSecretClient.getFoodNutrition(key);
+        } catch (Exception e) {
+            System.err.println("❌ FatSecret lookup failed for " + key + ": " + e.getMessage());
+            return Optional.empty();
+        } finally {
+            apiPermits.release();
+        }
+    }
+
+    /** Drops one ingredient from both tiers, so the next lookup goes to FatSecret. */
+    public void invalidate(String ingredientName) {
+        String key = normalize(ingredientName);
+        synchronized (entries) {
+            entries.remove(key);
+        }
+        repository.deleteById(key);
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        repository.deleteAllInBatch();
+    }
+
+    public NutritionCacheStatsResponse stats() {
+        NutritionCacheStatsResponse stats = new NutritionCacheStatsResponse();
+        synchronized (entries) {
+            stats.setMemorySize(entries.size());
+        }
+        long hits = memoryHits.get() + databaseHits.get(), lookups = apiLookups.get();
+        stats.setMaxMemorySize(maxSize);
+        stats.setMemoryHits(memoryHits.get());
+        stats.setDatabaseHits(databaseHits.get());
+        stats.setApiLookups(lookups);
+        stats.setStaleServed(staleServed.get());
+        stats.setHitRate(hits + lookups == 0 ? 0.0 : (double) hits / (hits + lookups));
+        return stats;
+    }
+
+    private boolean isFresh(Entry entry) {
+        return entry.fetchedAt() != null && entry.fetchedAt().plus(maxAge).isAfter(LocalDateTime.now());
+    }
+
+    private void remember(String key, Entry entry) {
+        if (maxSize == 0) return;
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    // "  Olive   Oil " and "olive oil" are the same ingredient
+    static String normalize(String ingredientName) {
+        if (ingredientName == null) return "";
+        return ingredientName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static IngredientNutrition toEntity(String key, NutritionFacts facts) {
+        IngredientNutrition row = new IngredientNutrition();
+        row.setIngredientKey(key);
+        row.setFoodName(facts.name());
+        row.setWeight(facts.weight());
+        row.setCalories(facts.calories());
+        row.setProtein(facts.protein());
+        row.setFat(facts.fat());
+        row.setCarbs(facts.carbs());
+        row.setVitaminA(facts.vitaminA());
+        row.setVitaminC(facts.vitaminC());
+        row.setSodium(facts.sodium());
+        row.setSaturatedFat(facts.saturatedFat());
+        row.setPotassium(facts.potassium());
+        row.setCholesterol(facts.cholesterol());
+        row.setCalcium(facts.calcium());
+        row.setIron(facts.iron());
+        row.setFetchedAt(LocalDateTime.now());
+        return row;
+    }
+
+    private static NutritionFacts toFacts(IngredientNutrition row) {
+        return new NutritionFacts(
+                row.getFoodName(),
+                row.getWeight() != null ? row.getWeight() : 100,
+                orZero(row.getCalories()),
+                orZero(row.getProtein()),
+                orZero(row.getFat()),
+                orZero(row.getCarbs()),
+                orZero(row.getVitaminA()),
+                orZero(row.getVitaminC()),
+                orZero(row.getSodium()),
+                orZero(row.getSaturatedFat()),
+                orZero(row.getPotassium()),
+                orZero(row.getCholesterol()),
+                orZero(row.getCalcium()),
+                orZero(row.getIron()));
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
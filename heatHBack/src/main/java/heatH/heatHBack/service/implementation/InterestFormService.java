@@ -20,6 +20,7 @@ public class InterestFormService {
     private final InterestFormRepository interestFormRepository;
     private final UserRepository userRepository;
     private final GcsService gcsService;
+    private final RecentFeedWindow recentFeedWindow;
 
     public InterestForm submitForm(InterestFormRequest request) {
         String email = getCurrentUserEmail();
@@ -51,7 +52,9 @@ public class InterestFormService {
             userRepository.save(user);
         }
 
-        return interestFormRepository.save(form);
+        InterestForm saved = interestFormRepository.save(form);
+        recentFeedWindow.updateAuthor(user);
+        return saved;
     }
 
 
@@ -121,7 +124,9 @@ public class InterestFormService {
         if (request.getGender() != null) {
             form.setGender(request.getGender());
         }
-        return interestFormRepository.save(form);
+        InterestForm saved = interestFormRepository.save(form);
+        recentFeedWindow.updateAuthor(user);
+        return saved;
     }
 
 }
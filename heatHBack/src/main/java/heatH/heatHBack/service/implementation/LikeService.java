@@ -19,6 +19,7 @@ public class LikeService {
     private final LikeRepository likeRepository;
     private final FeedRepository feedRepository;
     private final UserRepository userRepository;
+    private final RecentFeedWindow recentFeedWindow;
 
     public void likeFeed(LikeRequest request) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -34,6 +35,7 @@ public class LikeService {
         int currentLikes = feed.getLikeCount() != null ? feed.getLikeCount() : 0;
         feed.setLikeCount(currentLikes + 1);
         feedRepository.save(feed);
+        recentFeedWindow.updateCounts(feed.getId(), feed.getLikeCount(), feed.getCommentCount());
     }
 
     public void unlikeFeed(LikeRequest request) {
@@ -48,6 +50,7 @@ public class LikeService {
         likeRepository.delete(like);
         feed.setLikeCount(feed.getLikeCount() - 1);
         feedRepository.save(feed);
+        recentFeedWindow.updateCounts(feed.getId(), feed.getLikeCount(), feed.getCommentCount());
     }
     
 }
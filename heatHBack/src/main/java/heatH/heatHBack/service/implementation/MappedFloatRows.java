@@ -0,0 +1,98 @@
+package heatH.heatHBack.service.implementation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-width float rows in a memory-mapped scratch file rather than on the heap. RecipeVectorIndex
+ * uses it in int8 mode, where the float rows are only read to re-rank a few candidates per query:
+ * the OS keeps the pages that are read resident and is free to drop the rest. The file is mapped
+ * in fixed segments, so growing it never remaps rows already written. Not thread-safe for writes;
+ * callers serialize writers and may read concurrently.
+ */
+final class MappedFloatRows implements AutoCloseable {
+
+    private static final long SEGMENT_BYTES = 64L << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int dimension;
+    private final int rowsPerSegment;
+    private final List<FloatBuffer> segments = new ArrayList<>();
+
+    MappedFloatRows(Path directory, int dimension) {
+        this.dimension = dimension;
+        this.rowsPerSegment = (int) Math.max(1, SEGMENT_BYTES / ((long) dimension * Float.BYTES));
+        try {
+            Files.createDirectories(directory);
+            this.file = Files.createTempFile(directory, "recipe-vectors-", ".rows");
+            this.file.toFile().deleteOnExit();
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create vector row file in " + directory, e);
+        }
+    }
+
+    int capacity() {
+        return segments.size() * rowsPerSegment;
+    }
+
+    void ensureCapacity(int rows) {
+        try {
+            while (capacity() < rows) {
+                long position = (long) segments.size() * rowsPerSegment * dimension * Float.BYTES;
+                long bytes = (long) rowsPerSegment * dimension * Float.BYTES;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, bytes)
+                        .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow vector row file " + file, e);
+        }
+    }
+
+    void write(int row, float[] source) {
+        FloatBuffer segment = segments.get(row / rowsPerSegment);
+        int offset = (row % rowsPerSegment) * dimension;
+        for (int i = 0; i < dimension; i++) segment.put(offset + i, source[i]);
+    }
+
+    void read(int row, float[] target) {
+        FloatBuffer segment = segments.get(row / rowsPerSegment);
+        int offset = (row % rowsPerSegment) * dimension;
+        for (int i = 0; i < dimension; i++) target[i] = segment.get(offset + i);
+    }
+
+    float dot(float[] query, int row) {
+        FloatBuffer segment = segments.get(row / rowsPerSegment);
+        int offset = (row % rowsPerSegment) * dimension;
+        float dot = 0f;
+        for (int i = 0; i < dimension; i++) dot += query[i] * segment.get(offset + i);
+        return dot;
+    }
+
+    void copy(int from, int to) {
+        float[] row = new float[dimension];
+        read(from, row);
+        write(to, row);
+    }
+
+    // the mappings are released when their buffers are collected; the file is unlinked now
+    @Override
+    public void close() {
+        segments.clear();
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not delete vector row file " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,4 +1,6 @@
 package heatH.heatHBack.service.implementation;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -6,47 +8,106 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import heatH.heatHBack.model.EmbeddingVersion;
 import heatH.heatHBack.model.NutritionData;
 
 @Service
 public class OpenAIService {
 
+    // response bytes per vector entry: base64 float32 is 4 bytes as ~5.4 characters, a JSON
+    // float like "-0.012345678," is up to ~22; both rounded up, plus room for the envelope
+    private static final int BASE64_BYTES_PER_DIMENSION = 6;
+    private static final int JSON_BYTES_PER_DIMENSION = 24;
+    private static final int RESPONSE_OVERHEAD_BYTES = 64 * 1024;
+
     private final WebClient webClient;
     private final String model;
+    private final int embeddingDimensions;
+    private final boolean base64Encoding;
+    private final int maxEmbeddingInputs;
 
     public OpenAIService(@Value("${openai.apiKey}") String apiKey,
-                         @Value("${openai.model:text-embedding-3-small}") String model) {
+                         @Value("${openai.base-url:https://api.openai.com/v1}") String baseUrl,
+                         @Value("${openai.model:text-embedding-3-small}") String model,
+                         @Value("${openai.embedding-dimensions:1536}") int embeddingDimensions,
+                         @Value("${openai.embedding-encoding:base64}") String embeddingEncoding,
+                         @Value("${openai.embedding-max-inputs:2048}") int maxEmbeddingInputs) {
         this.model = model;
+        this.embeddingDimensions = embeddingDimensions;
+        this.base64Encoding = "base64".equalsIgnoreCase(embeddingEncoding);
+        this.maxEmbeddingInputs = Math.max(1, maxEmbeddingInputs);
+        // the default 256 KiB buffer holds only ~30 base64 vectors of 1536 dimensions
+        int maxResponseBytes = maxResponseBytes(this.maxEmbeddingInputs, embeddingDimensions, base64Encoding);
         this.webClient = WebClient.builder()
-            .baseUrl("https://api.openai.com/v1")
+            .baseUrl(baseUrl)
             .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
             .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .exchangeStrategies(ExchangeStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseBytes))
+                .build())
             .build();
     }
 
+    /** Largest /embeddings response for maxInputs vectors, capped at the largest array. */
+    static int maxResponseBytes(int maxInputs, int dimensions, boolean base64) {
+        long perVector = (long) dimensions * (base64 ? BASE64_BYTES_PER_DIMENSION : JSON_BYTES_PER_DIMENSION) + 64;
+        return (int) Math.min(Integer.MAX_VALUE - 8, maxInputs * perVector + RESPONSE_OVERHEAD_BYTES);
+    }
+
+    /** The model and dimension every embedding is created with unless a caller asks for another version. */
+    public EmbeddingVersion getEmbeddingVersion() {
+        return new EmbeddingVersion(model, embeddingDimensions);
+    }
+
     public double[] createEmbedding(String text) {
-        Map<String, Object> body = Map.of("model", model, "input", text);
-        Map resp = webClient.post()
+        return createEmbedding(text, null);
+    }
+
+    // a null timeout waits for as long as the HTTP client does
+    public double[] createEmbedding(String text, Duration timeout) {
+        return createEmbeddings(List.of(text), timeout).get(0);
+    }
+
+    /** Embeds several texts in one /embeddings call; results are in the order of {@code texts}. */
+    public List<double[]> createEmbeddings(List<String> texts, Duration timeout) {
+        return createEmbeddings(texts, timeout, getEmbeddingVersion());
+    }
+
+    /**
+     * Embeds with an explicit model and dimension, e.g. while migrating to a new version.
+     * text-embedding-3 models shorten their vectors to the requested dimension; older models
+     * only have their native size, so a mismatch is reported instead of stored.
+     */
+    public List<double[]> createEmbeddings(List<String> texts, Duration timeout, EmbeddingVersion version) {
+        if (texts.isEmpty()) return List.of();
+        if (texts.size() > maxEmbeddingInputs) {
+            throw new RuntimeException("At most " + maxEmbeddingInputs + " texts per embedding request, got " + texts.size());
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", version.model());
+        body.put("input", texts);
+        if (version.model().startsWith("text-embedding-3")) body.put("dimensions", version.dimensions());
+        if (base64Encoding) body.put("encoding_format", "base64");
+        Mono<byte[]> call = webClient.post()
             .uri("/embeddings")
             .bodyValue(body)
             .retrieve()
-            .bodyToMono(Map.class)
-            .block();
-
-        if (resp == null || !resp.containsKey("data")) throw new RuntimeException("Empty embedding response");
-        List data = (List) resp.get("data");
-        if (data.isEmpty()) throw new RuntimeException("No embedding data returned");
-        Map first = (Map) data.get(0);
-        List<Number> embeddingList = (List<Number>) first.get("embedding");
-
-        double[] embedding = new double[embeddingList.size()];
-        for (int i = 0; i < embeddingList.size(); i++) {
-            embedding[i] = embeddingList.get(i).doubleValue();
+            .bodyToMono(byte[].class);
+        byte[] resp = timeout != null ? call.block(timeout) : call.block();
+        List<double[]> embeddings = EmbeddingResponseParser.parse(resp, texts.size());
+        for (double[] embedding : embeddings) {
+            if (embedding.length != version.dimensions()) {
+                throw new RuntimeException(version.model() + " returned " + embedding.length
+                        + " dimensions, expected " + version.dimensions());
+            }
         }
-        return embedding;
+        return embeddings;
     }
+
     public double calculateHealthinessScore(NutritionData nutritionData, int totalCalories) {
         String prompt = String.format(
             "Based on the following nutritional data for a recipe, provide a healthiness score from 1 to 5 (where 5 is very healthy and 1 is unhealthy). " +
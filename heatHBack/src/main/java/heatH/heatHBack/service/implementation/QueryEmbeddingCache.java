@@ -0,0 +1,102 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.response.EmbeddingCacheStatsResponse;
+
+/**
+ * Size- and TTL-bounded LRU cache of query text to embedding, so repeated
+ * searches skip the OpenAI round trip. Cached arrays are shared between
+ * callers and must not be modified.
+ */
+@Service
+public class QueryEmbeddingCache {
+
+    private record Entry(double[] embedding, long expiresAtNanos) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    public QueryEmbeddingCache(@Value("${semantic-search.query-cache.max-size:10000}") int maxSize,
+                               @Value("${semantic-search.query-cache.ttl-minutes:1440}") long ttlMinutes) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = Duration.ofMinutes(ttlMinutes).toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > QueryEmbeddingCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Returns the cached embedding of the query, computing and caching it on a miss or after expiry. */
+    public double[] getOrCompute(String query, Function<String, double[]> loader) {
+        String key = normalize(query);
+        long now = System.nanoTime();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAtNanos() - now > 0) {
+                    hits.incrementAndGet();
+                    return entry.embedding();
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        double[] embedding = loader.apply(key);
+        if (maxSize > 0 && embedding != null) {
+            synchronized (entries) {
+                entries.put(key, new Entry(embedding, System.nanoTime() + ttlNanos));
+            }
+        }
+        return embedding;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public EmbeddingCacheStatsResponse stats() {
+        EmbeddingCacheStatsResponse stats = new EmbeddingCacheStatsResponse();
+        synchronized (entries) {
+            stats.setSize(entries.size());
+        }
+        long h = hits.get(), m = misses.get();
+        stats.setMaxSize(maxSize);
+        stats.setHits(h);
+        stats.setMisses(m);
+        stats.setEvictions(evictions.get());
+        stats.setHitRate(h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+
+    // "  Chicken   Salad " and "chicken salad" should share one embedding
+    static String normalize(String query) {
+        if (query == null) return "";
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,179 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.User;
+import heatH.heatHBack.model.response.FeedResponse;
+
+/**
+ * In-process window over the newest feeds, already mapped with author name, photo and counts,
+ * so the first page of the recent feed is served without touching the feed or user tables.
+ * The window is a ring of at most maxSize entries, newest first; a new feed pushes out the
+ * oldest. Writers keep it current (create, like, comment, recipe deletion, profile edits) and
+ * it is reloaded after ttl, which bounds staleness from writes made on other instances.
+ *
+ * <p>The window always holds a prefix of the feed ordered by (createdAt, id) desc: removals
+ * only shorten it. Stored responses are never handed out; readers get copies with
+ * likedByCurrentUser false for the caller to fill in.
+ */
+@Service
+public class RecentFeedWindow {
+
+    /** A served first page; hasMore is false only when the window holds every feed. */
+    public record Page(List<FeedResponse> feeds, boolean hasMore) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final FeedResponse[] ring;
+    private int head;   // index of the newest entry
+    private int size;
+    private boolean complete;
+    private boolean loaded;
+    private long loadedAtNanos;
+    private long version;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public RecentFeedWindow(@Value("${feed.hot-window.size:200}") int maxSize,
+                            @Value("${feed.hot-window.ttl-ms:30000}") long ttlMillis) {
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+        this.ring = new FeedResponse[this.maxSize];
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /** The newest {@code limit} feeds, or null when the window is cold, expired or too short to answer. */
+    public synchronized Page firstPage(int limit) {
+        if (!loaded || limit <= 0 || System.nanoTime() - loadedAtNanos > ttlNanos) return null;
+        if (size < limit && !complete) return null;
+
+        int count = Math.min(limit, size);
+        List<FeedResponse> feeds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            feeds.add(copy(ring[(head + i) % maxSize]));
+        }
+        return new Page(feeds, size > limit || !complete);
+    }
+
+    /**
+     * Claims the reload of a cold or expired window. Returns the version to pass to
+     * {@link #fill}, or -1 if another thread is already reloading.
+     */
+    public synchronized long beginRefresh() {
+        if (maxSize == 0 || !refreshing.compareAndSet(false, true)) return -1;
+        return version;
+    }
+
+    /**
+     * Replaces the window with {@code newestFirst}, loaded from the database after
+     * {@link #beginRefresh}. Dropped if a feed was created or deleted in between, since the
+     * loaded rows may predate it; the next read simply tries again.
+     */
+    public synchronized void fill(long expectedVersion, List<FeedResponse> newestFirst, boolean complete) {
+        refreshing.set(false);
+        if (expectedVersion != version) return;
+
+        int count = Math.min(newestFirst.size(), maxSize);
+        for (int i = 0; i < maxSize; i++) {
+            ring[i] = i < count ? copy(newestFirst.get(i)) : null;
+        }
+        head = 0;
+        size = count;
+        this.complete = complete && newestFirst.size() <= maxSize;
+        loaded = true;
+        loadedAtNanos = System.nanoTime();
+    }
+
+    public void abortRefresh() {
+        refreshing.set(false);
+    }
+
+    /** Adds a just-created feed as the newest entry, evicting the oldest when full. */
+    public synchronized void push(FeedResponse feed) {
+        version++;
+        if (!loaded || maxSize == 0) return;
+        head = (head - 1 + maxSize) % maxSize;
+        if (size == maxSize) {
+            complete = false;
+        } else {
+            size++;
+        }
+        ring[head] = copy(feed);
+    }
+
+    public void updateCounts(Long feedId, Integer likeCount, Integer commentCount) {
+        update(entry -> {
+            if (!entry.getId().equals(feedId)) return entry;
+            FeedResponse updated = copy(entry);
+            updated.setLikeCount(likeCount);
+            updated.setCommentCount(commentCount);
+            return updated;
+        });
+    }
+
+    public void updateAuthor(User author) {
+        update(entry -> {
+            if (!entry.getUserId().equals(author.getId())) return entry;
+            FeedResponse updated = copy(entry);
+            updated.setName(author.getName());
+            updated.setSurname(author.getSurname());
+            updated.setProfilePhoto(author.getProfilePhoto());
+            return updated;
+        });
+    }
+
+    /** Drops deleted feeds; the remaining entries are still the newest feeds, just fewer of them. */
+    public synchronized void remove(Collection<Long> feedIds) {
+        version++;
+        if (!loaded || feedIds.isEmpty()) return;
+        List<FeedResponse> kept = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            FeedResponse entry = ring[(head + i) % maxSize];
+            if (!feedIds.contains(entry.getId())) kept.add(entry);
+        }
+        for (int i = 0; i < maxSize; i++) {
+            ring[i] = i < kept.size() ? kept.get(i) : null;
+        }
+        head = 0;
+        size = kept.size();
+    }
+
+    // Count and profile changes do not abort a reload in flight (likes are too frequent for
+    // that); at worst the reloaded counts are behind by one write until the next reload.
+    private synchronized void update(UnaryOperator<FeedResponse> change) {
+        if (!loaded) return;
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % maxSize;
+            ring[index] = change.apply(ring[index]);
+        }
+    }
+
+    private static FeedResponse copy(FeedResponse source) {
+        FeedResponse copy = new FeedResponse();
+        copy.setId(source.getId());
+        copy.setUserId(source.getUserId());
+        copy.setType(source.getType());
+        copy.setText(source.getText());
+        copy.setImage(source.getImage());
+        copy.setRecipe(source.getRecipe());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setLikeCount(source.getLikeCount());
+        copy.setCommentCount(source.getCommentCount());
+        copy.setName(source.getName());
+        copy.setSurname(source.getSurname());
+        copy.setProfilePhoto(source.getProfilePhoto());
+        return copy;
+    }
+}
@@ -0,0 +1,104 @@
+package heatH.heatHBack.service.implementation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.NutritionData;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.request.SearchFilters;
+
+/**
+ * Filterable recipe attributes kept next to the search indexes, so a filtered
+ * search can decide which recipes qualify without going to the database.
+ */
+@Service
+public class RecipeAttributeIndex {
+
+    // unknown macros are NaN, which fails every range comparison
+    private record Attributes(int totalCalorie, double price, double healthinessScore, String tag, String type,
+                              double protein, double carbs, double fat) {}
+
+    private final Map<Long, Attributes> attributesByRecipe = new ConcurrentHashMap<>();
+
+    public void put(Recipe recipe) {
+        if (recipe == null || recipe.getId() == null) return;
+        NutritionData n = recipe.getNutritionData();
+        attributesByRecipe.put(recipe.getId(), new Attributes(
+                recipe.getTotalCalorie(),
+                recipe.getPrice(),
+                recipe.getHealthinessScore(),
+                recipe.getTag(),
+                recipe.getType(),
+                n != null && n.getProtein() != null ? n.getProtein() : Double.NaN,
+                n != null && n.getCarbs() != null ? n.getCarbs() : Double.NaN,
+                n != null && n.getFat() != null ? n.getFat() : Double.NaN));
+    }
+
+    public void remove(Long recipeId) {
+        if (recipeId != null) attributesByRecipe.remove(recipeId);
+    }
+
+    public void clear() {
+        attributesByRecipe.clear();
+    }
+
+    /**
+     * Returns a predicate over recipe ids for the given filters, or null when nothing is filtered.
+     * The filters are copied when the matcher is made, so it is safe to share between the scan
+     * threads and does not unbox a filter value per recipe.
+     */
+    public LongPredicate matcher(SearchFilters filters) {
+        if (filters == null || isEmpty(filters)) return null;
+        Bounds bounds = Bounds.of(filters);
+        return recipeId -> {
+            Attributes a = attributesByRecipe.get(recipeId);
+            return a != null && bounds.matches(a);
+        };
+    }
+
+    // absent bounds are NaN, so only the bounds that were set are checked
+    private record Bounds(double minCalorie, double maxCalorie, double maxPrice, double minHealthinessScore,
+                          String tag, String type, double minProtein, double maxProtein,
+                          double minCarbs, double maxCarbs, double minFat, double maxFat) {
+
+        static Bounds of(SearchFilters f) {
+            return new Bounds(orNaN(f.getMinCalorie()), orNaN(f.getMaxCalorie()), orNaN(f.getMaxPrice()),
+                    orNaN(f.getMinHealthinessScore()), f.getTag(), f.getType(),
+                    orNaN(f.getMinProtein()), orNaN(f.getMaxProtein()),
+                    orNaN(f.getMinCarbs()), orNaN(f.getMaxCarbs()),
+                    orNaN(f.getMinFat()), orNaN(f.getMaxFat()));
+        }
+
+        boolean matches(Attributes a) {
+            if (a.totalCalorie() < minCalorie || a.totalCalorie() > maxCalorie) return false;
+            if (a.price() > maxPrice || a.healthinessScore() < minHealthinessScore) return false;
+            if (tag != null && !tag.equalsIgnoreCase(a.tag())) return false;
+            if (type != null && !type.equalsIgnoreCase(a.type())) return false;
+            return inRange(a.protein(), minProtein, maxProtein)
+                    && inRange(a.carbs(), minCarbs, maxCarbs)
+                    && inRange(a.fat(), minFat, maxFat);
+        }
+
+        // an unknown (NaN) macro fails every bound that is set
+        private static boolean inRange(double value, double min, double max) {
+            if (!Double.isNaN(min) && !(value >= min)) return false;
+            if (!Double.isNaN(max) && !(value <= max)) return false;
+            return true;
+        }
+
+        private static double orNaN(Number value) {
+            return value != null ? value.doubleValue() : Double.NaN;
+        }
+    }
+
+    private static boolean isEmpty(SearchFilters f) {
+        return f.getMinCalorie() == null && f.getMaxCalorie() == null && f.getMaxPrice() == null
+                && f.getMinHealthinessScore() == null && f.getTag() == null && f.getType() == null
+                && f.getMinProtein() == null && f.getMaxProtein() == null
+                && f.getMinCarbs() == null && f.getMaxCarbs() == null
+                && f.getMinFat() == null && f.getMaxFat() == null;
+    }
+}
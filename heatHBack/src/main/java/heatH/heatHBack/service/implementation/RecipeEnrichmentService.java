@@ -0,0 +1,216 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import heatH.heatHBack.model.NutritionProfile;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.RecipeEnrichmentJob;
+import heatH.heatHBack.model.RecipeEnrichmentStatus;
+import heatH.heatHBack.model.response.RecipeEnrichmentStatusResponse;
+import heatH.heatHBack.repository.RecipeEnrichmentJobRepository;
+import heatH.heatHBack.repository.RecipeRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background pipeline that finishes recipes saved by RecipeService: nutrition profile,
+ * healthiness score and embedding. Jobs live in the recipe_enrichment_job table, so they
+ * survive restarts; failed jobs are retried with exponential backoff until maxAttempts.
+ */
+@Service
+public class RecipeEnrichmentService {
+
+    private final RecipeEnrichmentJobRepository jobRepository;
+    private final RecipeRepository recipeRepository;
+    private final CalorieService calorieService;
+    private final OpenAIService openAIService;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final SemanticSearchService semanticSearchService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final ExecutorService workerPool;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RecipeEnrichmentService(RecipeEnrichmentJobRepository jobRepository,
+                                   RecipeRepository recipeRepository,
+                                   CalorieService calorieService,
+                                   OpenAIService openAIService,
+                                   EmbeddingBatcher embeddingBatcher,
+                                   SemanticSearchService semanticSearchService,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${recipe-enrichment.workers:4}") int workers,
+                                   @Value("${recipe-enrichment.max-attempts:6}") int maxAttempts,
+                                   @Value("${recipe-enrichment.base-backoff-ms:5000}") long baseBackoffMillis,
+                                   @Value("${recipe-enrichment.max-backoff-ms:600000}") long maxBackoffMillis,
+                                   @Value("${recipe-enrichment.lease-ms:300000}") long leaseMillis) {
+        this.jobRepository = jobRepository;
+        this.recipeRepository = recipeRepository;
+        this.calorieService = calorieService;
+        this.openAIService = openAIService;
+        this.embeddingBatcher = embeddingBatcher;
+        this.semanticSearchService = semanticSearchService;
+        this.transactionTemplate = transactionTemplate;
+        this.workers = Math.max(1, workers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoff = Duration.ofMillis(baseBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.lease = Duration.ofMillis(leaseMillis);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(this.workers, runnable -> {
+            Thread thread = new Thread(runnable, "recipe-enrichment-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Queues enrichment of a just-saved recipe; call inside the transaction that saved it. */
+    public void enqueue(Long recipeId) {
+        RecipeEnrichmentJob job = new RecipeEnrichmentJob();
+        job.setRecipeId(recipeId);
+        job.setStatus(RecipeEnrichmentJob.Status.PENDING);
+        job.setAttempts(0);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setNextAttemptAt(job.getCreatedAt());
+        jobRepository.save(job);
+    }
+
+    @Scheduled(fixedDelayString = "${recipe-enrichment.poll-interval-ms:1000}")
+    public void pollJobs() {
+        int free = workers - inFlight.get();
+        if (free <= 0) return;
+
+        List<RecipeEnrichmentJob> jobs;
+        try {
+            jobs = jobRepository.claimDueJobs(free, LocalDateTime.now().plus(lease));
+        } catch (Exception e) {
+            System.err.println("❌ Could not claim recipe enrichment jobs: " + e.getMessage());
+            return;
+        }
+        for (RecipeEnrichmentJob job : jobs) {
+            inFlight.incrementAndGet();
+            workerPool.execute(() -> {
+                try {
+                    process(job);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void process(RecipeEnrichmentJob job) {
+        try {
+            Optional<Recipe> loaded = recipeRepository.findAllWithIngredientsByIdIn(List.of(job.getRecipeId()))
+                    .stream().findFirst();
+            if (loaded.isEmpty()) {
+                // recipe was deleted while queued
+                jobRepository.deleteById(job.getId());
+                return;
+            }
+            Recipe recipe = loaded.get();
+
+            NutritionProfile profile = calorieService.calculateNutritionProfile(recipe.getIngredients());
+            double healthinessScore = openAIService.calculateHealthinessScore(profile.getNutritionData(), profile.getTotalCalorie());
+
+            String text = SemanticSearchService.embeddingText(recipe);
+            double[] emb = embeddingBatcher.embed(text);
+            semanticSearchService.saveEmbeddingForRecipe(recipe.getId(), emb);
+            semanticSearchService.saveMigrationEmbedding(recipe.getId(), text);
+
+            boolean stillExists = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Optional<Recipe> current = recipeRepository.findById(recipe.getId());
+                if (current.isEmpty()) return false;
+                current.get().setTotalCalorie(profile.getTotalCalorie());
+                current.get().setNutritionData(profile.getNutritionData());
+                current.get().setHealthinessScore(healthinessScore);
+                current.get().setEnrichmentStatus(RecipeEnrichmentStatus.COMPLETED);
+                jobRepository.deleteById(job.getId());
+                return true;
+            }));
+
+            if (!stillExists) {
+                semanticSearchService.deleteEmbeddingForRecipe(recipe.getId());
+                jobRepository.deleteById(job.getId());
+                return;
+            }
+            recipe.setTotalCalorie(profile.getTotalCalorie());
+            recipe.setNutritionData(profile.getNutritionData());
+            recipe.setHealthinessScore(healthinessScore);
+            // same order as deleteRecipeById (row gone, then index entry gone), mirrored: index, then
+            // check the row, so a delete committing in between is undone by one side or the other
+            semanticSearchService.indexRecipe(recipe);
+            if (!recipeRepository.existsById(recipe.getId())) {
+                semanticSearchService.removeRecipeFromIndexes(recipe.getId());
+            }
+        } catch (Exception e) {
+            fail(job, e);
+        }
+    }
+
+    private void fail(RecipeEnrichmentJob job, Exception error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        try {
+            if (job.getAttempts() >= maxAttempts) {
+                System.err.println("❌ Giving up enriching recipe " + job.getRecipeId() + " after " + job.getAttempts() + " attempts: " + message);
+                job.setStatus(RecipeEnrichmentJob.Status.FAILED);
+                job.setLastError(message);
+                transactionTemplate.executeWithoutResult(status -> {
+                    jobRepository.save(job);
+                    recipeRepository.findById(job.getRecipeId())
+                            .ifPresent(recipe -> recipe.setEnrichmentStatus(RecipeEnrichmentStatus.FAILED));
+                });
+                return;
+            }
+            Duration delay = backoff(job.getAttempts());
+            System.err.println("⚠️ Enriching recipe " + job.getRecipeId() + " failed (attempt " + job.getAttempts() + "), retrying in " + delay.toSeconds() + "s: " + message);
+            job.setStatus(RecipeEnrichmentJob.Status.PENDING);
+            job.setLastError(message);
+            job.setNextAttemptAt(LocalDateTime.now().plus(delay));
+            jobRepository.save(job);
+        } catch (Exception e) {
+            // the lease expires on its own and the job is picked up again
+            System.err.println("❌ Could not record enrichment failure for recipe " + job.getRecipeId() + ": " + e.getMessage());
+        }
+    }
+
+    // base, 2x base, 4x base, ... capped at maxBackoff
+    private Duration backoff(int attempts) {
+        int doublings = Math.min(Math.max(0, attempts - 1), 20);
+        Duration delay = baseBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    public RecipeEnrichmentStatusResponse getStatus(Long recipeId) {
+        Recipe recipe = recipeRepository.findById(recipeId)
+                .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        RecipeEnrichmentStatusResponse response = new RecipeEnrichmentStatusResponse();
+        response.setRecipeId(recipeId);
+        response.setStatus(recipe.getEnrichmentStatus() != null ? recipe.getEnrichmentStatus() : RecipeEnrichmentStatus.COMPLETED);
+        jobRepository.findByRecipeId(recipeId).ifPresent(job -> {
+            response.setAttempts(job.getAttempts());
+            response.setLastError(job.getLastError());
+        });
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+}
@@ -0,0 +1,164 @@
+package heatH.heatHBack.service.implementation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+import org.springframework.stereotype.Service;
+
+import heatH.heatHBack.model.Ingredients;
+import heatH.heatHBack.model.Recipe;
+
+/**
+ * In-memory BM25 inverted index over recipe title, tag, type and ingredient names.
+ * Title terms count double, so a title match outranks a passing ingredient mention.
+ */
+@Service
+public class RecipeLexicalIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final float TITLE_WEIGHT = 2.0f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, Map<String, Float>> termsByRecipe = new HashMap<>();
+    private final Map<Long, Float> lengthByRecipe = new HashMap<>();
+    private double totalLength = 0;
+
+    /** Indexes a recipe, replacing whatever was indexed for it before. */
+    public void put(Recipe recipe) {
+        if (recipe == null || recipe.getId() == null) return;
+
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, recipe.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, recipe.getTag(), 1f);
+        addTerms(terms, recipe.getType(), 1f);
+        if (recipe.getIngredients() != null) {
+            for (Ingredients ingredient : recipe.getIngredients()) {
+                addTerms(terms, ingredient.getName(), 1f);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipe.getId());
+            float length = 0;
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(recipe.getId(), term.getValue());
+                length += term.getValue();
+            }
+            termsByRecipe.put(recipe.getId(), terms);
+            lengthByRecipe.put(recipe.getId(), length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long recipeId) {
+        if (recipeId == null) return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByRecipe.clear();
+            lengthByRecipe.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns up to {@code topK} recipe ids ranked by BM25 score, best first. */
+    public List<Long> search(String query, int topK) {
+        return search(query, topK, null);
+    }
+
+    /** Filtered search; recipes rejected by {@code filter} are skipped before they are scored. */
+    public List<Long> search(String query, int topK, LongPredicate filter) {
+        Map<String, Float> queryTerms = new HashMap<>();
+        addTerms(queryTerms, query, 1f);
+
+        lock.readLock().lock();
+        try {
+            int docCount = lengthByRecipe.size();
+            if (docCount == 0 || queryTerms.isEmpty() || topK <= 0) return List.of();
+            double avgLength = totalLength / docCount;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : queryTerms.keySet()) {
+                Map<Long, Float> docs = postings.get(term);
+                if (docs == null) continue;
+                double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+                    if (filter != null && !filter.test(doc.getKey())) continue;
+                    double tf = doc.getValue();
+                    double norm = K1 * (1 - B + B * lengthByRecipe.get(doc.getKey()) / avgLength);
+                    scores.merge(doc.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> b.getValue().equals(a.getValue())
+                    ? Long.compare(a.getKey(), b.getKey())
+                    : Double.compare(b.getValue(), a.getValue()));
+            List<Long> result = new ArrayList<>(Math.min(topK, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < topK; i++) {
+                result.add(ranked.get(i).getKey());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return lengthByRecipe.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long recipeId) {
+        Map<String, Float> terms = termsByRecipe.remove(recipeId);
+        if (terms == null) return;
+        for (String term : terms.keySet()) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(recipeId);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+        Float length = lengthByRecipe.remove(recipeId);
+        if (length != null) totalLength -= length;
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= 2) tokens.add(token);
+        }
+        return tokens;
+    }
+}
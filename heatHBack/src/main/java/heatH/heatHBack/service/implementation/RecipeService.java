@@ -1,10 +1,8 @@
 package heatH.heatHBack.service.implementation;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import heatH.heatHBack.model.*;
 import heatH.heatHBack.repository.*;
@@ -12,9 +10,13 @@ import jakarta.transaction.Transactional;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import heatH.heatHBack.model.request.RecipeRequest;
 import heatH.heatHBack.model.request.EasinessRateRequest;
+import heatH.heatHBack.model.response.RecipeEnrichmentStatusResponse;
 import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
@@ -28,10 +30,20 @@ public class RecipeService {
     private final CommentRepository commentRepository;
     private final OpenAIService openAIService;
     private final SemanticSearchService semanticSearchService;
-    private final CalorieService calorieService;
+    private final RecipeEnrichmentService recipeEnrichmentService;
     private final EasinessRateRepository easinessRateRepository;
-
-
+    private final RecipeEnrichmentJobRepository recipeEnrichmentJobRepository;
+    private final TimelineService timelineService;
+    private final RecentFeedWindow recentFeedWindow;
+    private final TransactionTemplate transactionTemplate;
+
+
+    /**
+     * Persists the recipe right away with enrichment PENDING; calories, nutrition data,
+     * healthiness score and the embedding are filled in by RecipeEnrichmentService.
+     * The photo is uploaded before the transaction starts, so only the recipe row and its
+     * enrichment job are written inside it and no connection is held during the upload.
+     */
     public Recipe saveRecipe(RecipeRequest request) {
         Recipe recipe = new Recipe();
         recipe.setTitle(request.getTitle());
@@ -39,37 +51,8 @@ public class RecipeService {
         recipe.setIngredients(request.getIngredients());
         recipe.setTag(request.getTag());
         recipe.setType(request.getType());
-        //recipe.setTotalCalorie(request.getTotalCalorie());
-        recipe.setTotalCalorie(calorieService.calculateCalorie(request.getIngredients()));
-
-        // Besin verilerini hesapla
-        Map<String, Double> macros = calorieService.calculateMacronutrients(request.getIngredients());
-
-        NutritionData nutritionData = new NutritionData();
-        // Orijinal makroları ayarla
-        nutritionData.setCarbs(macros.getOrDefault("carbs", 0.0));
-        nutritionData.setFat(macros.getOrDefault("fat", 0.0));
-        nutritionData.setProtein(macros.getOrDefault("protein", 0.0));
-
-        // --- YENİ EKLENEN BÖLÜM ---
-        // Yeni mikroları ayarla
-        nutritionData.setVitaminA(macros.getOrDefault("vitamin_a", 0.0));
-        nutritionData.setVitaminC(macros.getOrDefault("vitamin_c", 0.0));
-        nutritionData.setSodium(macros.getOrDefault("sodium", 0.0));
-        nutritionData.setSaturatedFat(macros.getOrDefault("saturated_fat", 0.0));
-        nutritionData.setPotassium(macros.getOrDefault("potassium", 0.0));
-        nutritionData.setCholesterol(macros.getOrDefault("cholesterol", 0.0));
-        nutritionData.setCalcium(macros.getOrDefault("calcium", 0.0));
-        nutritionData.setIron(macros.getOrDefault("iron", 0.0));
-        // --- YENİ BÖLÜMÜN SONU ---
-
-        recipe.setNutritionData(nutritionData);
-
-        double healthinessScore = openAIService.calculateHealthinessScore(nutritionData, recipe.getTotalCalorie());
-        recipe.setHealthinessScore(healthinessScore);
-        recipe.setPrice(request.getPrice());
-
         recipe.setPrice(request.getPrice());
+        recipe.setEnrichmentStatus(RecipeEnrichmentStatus.PENDING);
 
         if (request.getPhoto() != null) {
             String fileName = "user-profile-" + UUID.randomUUID() + ".jpg";
@@ -83,15 +66,16 @@ public class RecipeService {
 
         recipe.setUser(user);
 
-        List<Ingredients> ingredients = recipe.getIngredients();
-        String ingredientsText = ingredients.stream()
-                .map(Ingredients::getName)
-                .collect(Collectors.joining(", "));
-        Recipe savedRecipe = recipeRepository.save(recipe);
-        double[] emb = openAIService.createEmbedding(savedRecipe.getTitle() + " " + ingredientsText);
-        semanticSearchService.saveEmbeddingForRecipe(savedRecipe.getId(), emb);
-        return savedRecipe;
+        return transactionTemplate.execute(status -> {
+            Recipe savedRecipe = recipeRepository.save(recipe);
+            recipeEnrichmentService.enqueue(savedRecipe.getId());
+            afterCommit(() -> semanticSearchService.indexRecipe(savedRecipe));
+            return savedRecipe;
+        });
+    }
 
+    public RecipeEnrichmentStatusResponse getEnrichmentStatus(Long recipeId) {
+        return recipeEnrichmentService.getStatus(recipeId);
     }
 
     public Optional<Recipe> getRecipeById(Long id) {
@@ -104,10 +88,31 @@ public class RecipeService {
         savedRecipeRepository.deleteByRecipe(recipe);
         List<Feed> feedsToDelete = feedRepository.findByRecipeId(id);
         feedRepository.deleteAll(feedsToDelete);
+        timelineService.onFeedsDeleted(feedsToDelete);
+        recentFeedWindow.remove(feedsToDelete.stream().map(Feed::getId).toList());
         recipeRepository.deleteById(id);
         likeRepository.deleteAllByFeedIn(feedsToDelete);
         commentRepository.deleteAllByFeedIn(feedsToDelete);
-        semanticSearchService.deleteEmbeddingForRecipe(id);
+        recipeEnrichmentJobRepository.deleteByRecipeId(id);
+        afterCommit(() -> {
+            semanticSearchService.deleteEmbeddingForRecipe(id);
+            semanticSearchService.removeRecipeFromIndexes(id);
+        });
+    }
+
+    // the in-memory search indexes must only ever reflect committed rows; a rolled back save or
+    // delete leaves them alone
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     public Optional<List<Recipe>> getAllRecipes() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
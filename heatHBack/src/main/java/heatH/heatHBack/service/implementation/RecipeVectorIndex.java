@@ -0,0 +1,613 @@
+package heatH.heatHBack.service.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resident copy of every recipe embedding, kept as one contiguous row-major
+ * float matrix so a search never has to go back to Mongo. Rows are normalized
+ * on insert, so cosine similarity is a single dot product. Optionally keeps an
+ * int8 copy of each row for a first scoring pass that reads a quarter of the bytes;
+ * in that mode the float rows are only needed to re-rank the candidates, so they live
+ * in a memory-mapped scratch file (see {@link MappedFloatRows}) instead of on the heap.
+ */
+@Service
+public class RecipeVectorIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_CHUNK_ROWS = 4096;
+
+    private static final int SNAPSHOT_MAGIC = 0x48525653; // "HRVS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_BYTES = 24;
+    private static final long MAX_MAPPED_BYTES = 1L << 30;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotByRecipeId = new HashMap<>();
+
+    private final boolean int8Enabled;
+    private final int rerankFactor;
+    private final int parallelThreshold;
+    private final Path rowsDirectory;
+
+    private MappedFloatRows floatRows;
+    private float[] vectors = new float[0];
+    private byte[] codes = new byte[0];
+    private float[] codeScales = new float[0];
+    private long[] recipeIds = new long[0];
+    private int dimension = -1;
+    private int size = 0;
+
+    public RecipeVectorIndex() {
+        this("none", 4, 50_000);
+    }
+
+    public RecipeVectorIndex(String quantization, int rerankFactor, int parallelThreshold) {
+        this(quantization, rerankFactor, parallelThreshold, "");
+    }
+
+    @Autowired
+    public RecipeVectorIndex(@Value("${semantic-search.quantization:none}") String quantization,
+                             @Value("${semantic-search.rerank-factor:4}") int rerankFactor,
+                             @Value("${semantic-search.parallel-threshold:50000}") int parallelThreshold,
+                             @Value("${semantic-search.quantization-rows-dir:}") String rowsDirectory) {
+        this.int8Enabled = "int8".equalsIgnoreCase(quantization);
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.parallelThreshold = Math.max(MIN_CHUNK_ROWS, parallelThreshold);
+        this.rowsDirectory = rowsDirectory == null || rowsDirectory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"))
+                : Path.of(rowsDirectory);
+    }
+
+    /** A new, empty index with the same settings, e.g. to rebuild next to a live one and swap. */
+    public RecipeVectorIndex emptyCopy() {
+        return new RecipeVectorIndex(int8Enabled ? "int8" : "none", rerankFactor, parallelThreshold, rowsDirectory.toString());
+    }
+
+    /** Inserts the embedding of a recipe, or overwrites its row in place if it is already indexed. */
+    public boolean put(Long recipeId, double[] embedding) {
+        if (recipeId == null || embedding == null || embedding.length == 0) return false;
+
+        lock.writeLock().lock();
+        try {
+            if (dimension < 0) {
+                dimension = embedding.length;
+            } else if (embedding.length != dimension) {
+                System.err.println("⚠️ Skipping embedding of recipe " + recipeId + ": expected "
+                        + dimension + " dimensions but got " + embedding.length);
+                return false;
+            }
+
+            Integer slot = slotByRecipeId.get(recipeId);
+            if (slot == null) {
+                ensureCapacity(size + 1);
+                slot = size++;
+                slotByRecipeId.put(recipeId, slot);
+                recipeIds[slot] = recipeId;
+            }
+
+            float[] row = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                row[i] = (float) embedding[i];
+            }
+            writeRow(slot, row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean put(Long recipeId, float[] embedding) {
+        if (embedding == null) return false;
+        double[] d = new double[embedding.length];
+        for (int i = 0; i < embedding.length; i++) d[i] = embedding[i];
+        return put(recipeId, d);
+    }
+
+    /** Removes a recipe by moving the last row into its slot, so the matrix stays dense. */
+    public void remove(Long recipeId) {
+        if (recipeId == null) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByRecipeId.remove(recipeId);
+            if (slot == null) return;
+
+            int last = --size;
+            if (slot != last) {
+                if (int8Enabled) {
+                    floatRows.copy(last, slot);
+                    System.arraycopy(codes, last * dimension, codes, slot * dimension, dimension);
+                    codeScales[slot] = codeScales[last];
+                } else {
+                    System.arraycopy(vectors, last * dimension, vectors, slot * dimension, dimension);
+                }
+                recipeIds[slot] = recipeIds[last];
+                slotByRecipeId.put(recipeIds[slot], slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Deletes the scratch file of the int8 float rows; the index is empty afterwards. */
+    @PreDestroy
+    public void close() {
+        clear();
+    }
+
+    private void reset() {
+        slotByRecipeId.clear();
+        if (floatRows != null) {
+            floatRows.close();
+            floatRows = null;
+        }
+        vectors = new float[0];
+        codes = new byte[0];
+        codeScales = new float[0];
+        recipeIds = new long[0];
+        dimension = -1;
+        size = 0;
+    }
+
+    // normalizes the row in place, then stores it (and its int8 code) in the given slot
+    private void writeRow(int slot, float[] row) {
+        normalize(row, 0, dimension);
+        if (int8Enabled) {
+            floatRows.write(slot, row);
+            codeScales[slot] = quantize(row, 0, dimension, codes, slot * dimension);
+        } else {
+            System.arraycopy(row, 0, vectors, slot * dimension, dimension);
+        }
+    }
+
+    private float[] readRow(int slot) {
+        if (!int8Enabled) {
+            return Arrays.copyOfRange(vectors, slot * dimension, (slot + 1) * dimension);
+        }
+        float[] row = new float[dimension];
+        floatRows.read(slot, row);
+        return row;
+    }
+
+    /**
+     * Returns the ids of the {@code topK} recipes most similar to the query, best first.
+     * With int8 quantization the whole catalog is first scored on the byte codes and only
+     * the best {@code topK * rerankFactor} rows are re-ranked with exact float cosine.
+     * Catalogs above the parallel threshold are scored in chunks on the common ForkJoin pool.
+     */
+    public List<Long> nearest(double[] query, int topK) {
+        return nearest(query, topK, null);
+    }
+
+    /**
+     * Like {@link #nearest(double[], int)}, restricted to recipes accepted by {@code filter}.
+     * The filter is evaluated inside the chunked scan, so on large catalogs it runs on the
+     * pool threads alongside scoring; rejected rows are skipped before their dot product.
+     * The filter must therefore be safe to call from several threads at once.
+     */
+    public List<Long> nearest(double[] query, int topK, LongPredicate filter) {
+        lock.readLock().lock();
+        try {
+            if (query == null || size == 0 || topK <= 0) return List.of();
+
+            if (query.length != dimension) {
+                throw new RuntimeException("Query has " + query.length + " dimensions but the index has " + dimension);
+            }
+            float[] q = new float[dimension];
+            for (int i = 0; i < dimension; i++) q[i] = (float) query[i];
+            normalize(q, 0, dimension);
+
+            // heaps are sized by k, so a topK beyond the catalog never allocates more than the catalog
+            int k = Math.min(topK, size);
+            long rerankDepth = (long) k * rerankFactor;
+            TopK best;
+            if (int8Enabled && rerankDepth < size) {
+                byte[] qCodes = new byte[dimension];
+                float qScale = quantize(q, 0, dimension, qCodes, 0);
+                TopK candidates = scan(0, size, (int) rerankDepth, (from, to, heap) -> {
+                    for (int slot = from; slot < to; slot++) {
+                        if (filter != null && !filter.test(recipeIds[slot])) continue;
+                        heap.offer(slot, int8Dot(qCodes, slot) * qScale * codeScales[slot]);
+                    }
+                });
+
+                best = new TopK(k);
+                for (int i = 0; i < candidates.count; i++) {
+                    int slot = candidates.slots[i];
+                    best.offer(slot, dot(q, slot));
+                }
+            } else {
+                best = scan(0, size, k, (from, to, heap) -> {
+                    for (int slot = from; slot < to; slot++) {
+                        if (filter != null && !filter.test(recipeIds[slot])) continue;
+                        heap.offer(slot, dot(q, slot));
+                    }
+                });
+            }
+
+            int[] slots = best.sortedSlots();
+            List<Long> result = new ArrayList<>(slots.length);
+            for (int slot : slots) {
+                result.add(recipeIds[slot]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Hands a copy of every indexed row to the consumer, e.g. to build a secondary index. */
+    public void forEach(BiConsumer<Long, float[]> consumer) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < size; slot++) {
+                consumer.accept(recipeIds[slot], readRow(slot));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<float[]> vectorOf(Long recipeId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByRecipeId.get(recipeId);
+            if (slot == null) return Optional.empty();
+            return Optional.of(readRow(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> recipeIds() {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(size);
+            for (int slot = 0; slot < size; slot++) ids.add(recipeIds[slot]);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to {@code path} as a little-endian header (magic, version, dimension,
+     * row count, cutoff epoch millis) followed by the id array and the float matrix. The file
+     * is written next to the target and moved into place, so readers never see a partial snapshot.
+     */
+    public void writeSnapshot(Path path, long cutoffEpochMillis) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        lock.readLock().lock();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                  .putInt(Math.max(dimension, 0)).putInt(size).putLong(cutoffEpochMillis);
+            for (int slot = 0; slot < size; slot++) {
+                if (buffer.remaining() < Long.BYTES) flush(channel, buffer);
+                buffer.putLong(recipeIds[slot]);
+            }
+            for (int slot = 0; slot < size; slot++) {
+                for (float value : readRow(slot)) {
+                    if (buffer.remaining() < Float.BYTES) flush(channel, buffer);
+                    buffer.putFloat(value);
+                }
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces the index contents with a snapshot written by {@link #writeSnapshot}, mapping the
+     * file in windows of at most 1 GiB and copying it in row by row, so loading never holds a
+     * second copy of the matrix. Returns the snapshot cutoff, or empty if the file is missing or
+     * not a snapshot this version understands.
+     */
+    public Optional<Long> readSnapshot(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) return Optional.empty();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < SNAPSHOT_HEADER_BYTES) return Optional.empty();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SNAPSHOT_HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != SNAPSHOT_VERSION) return Optional.empty();
+            int dim = header.getInt();
+            int count = header.getInt();
+            long cutoff = header.getLong();
+
+            if (count < 0 || dim < 0 || (count > 0 && dim == 0)) return Optional.empty();
+            if ((long) count * dim > MAX_ARRAY_LENGTH) {
+                throw new IOException("Snapshot " + path + " holds " + count + " rows of " + dim
+                        + " dimensions, more than one index can address");
+            }
+            long idsBytes = (long) count * Long.BYTES;
+            long vectorBytes = (long) count * dim * Float.BYTES;
+            if (channel.size() != SNAPSHOT_HEADER_BYTES + idsBytes + vectorBytes) return Optional.empty();
+
+            long[] ids = new long[count];
+            long position = SNAPSHOT_HEADER_BYTES;
+            for (int read = 0; read < count; ) {
+                int n = (int) Math.min(count - read, MAX_MAPPED_BYTES / Long.BYTES);
+                map(channel, position, (long) n * Long.BYTES).asLongBuffer().get(ids, read, n);
+                position += (long) n * Long.BYTES;
+                read += n;
+            }
+
+            lock.writeLock().lock();
+            try {
+                reset();
+                if (count == 0) return Optional.of(cutoff);
+                dimension = dim;
+                ensureCapacity(count);
+                float[] row = new float[dim];
+                int rowsPerWindow = (int) Math.max(1, MAX_MAPPED_BYTES / ((long) dim * Float.BYTES));
+                for (int read = 0; read < count; ) {
+                    int n = Math.min(count - read, rowsPerWindow);
+                    long bytes = (long) n * dim * Float.BYTES;
+                    FloatBuffer window = map(channel, position, bytes).asFloatBuffer();
+                    for (int i = 0; i < n; i++) {
+                        int slot = read + i;
+                        window.get(row);
+                        writeRow(slot, row);
+                        recipeIds[slot] = ids[slot];
+                        slotByRecipeId.put(ids[slot], slot);
+                    }
+                    position += bytes;
+                    read += n;
+                }
+                size = count;
+                return Optional.of(cutoff);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long bytes) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @FunctionalInterface
+    private interface RangeScorer {
+        void score(int from, int to, TopK heap);
+    }
+
+    // callers hold the read lock, which keeps writers out while the pool threads read the arrays
+    private TopK scan(int from, int to, int k, RangeScorer scorer) {
+        if (to - from < parallelThreshold) {
+            TopK heap = new TopK(k);
+            scorer.score(from, to, heap);
+            return heap;
+        }
+        int chunk = Math.max(MIN_CHUNK_ROWS, (to - from) / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        return ForkJoinPool.commonPool().invoke(new ScanTask(from, to, chunk, k, scorer));
+    }
+
+    private static final class ScanTask extends RecursiveTask<TopK> {
+        private final int from, to, chunk, k;
+        private final RangeScorer scorer;
+
+        ScanTask(int from, int to, int chunk, int k, RangeScorer scorer) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.k = k;
+            this.scorer = scorer;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= chunk) {
+                TopK heap = new TopK(k);
+                scorer.score(from, to, heap);
+                return heap;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(from, mid, chunk, k, scorer);
+            left.fork();
+            TopK right = new ScanTask(mid, to, chunk, k, scorer).compute();
+            TopK merged = left.join();
+            for (int i = 0; i < right.count; i++) {
+                merged.offer(right.slots[i], right.scores[i]);
+            }
+            return merged;
+        }
+    }
+
+    /** Bounded min-heap over parallel primitive arrays; the root is the weakest of the best k. */
+    private static final class TopK {
+        private final int[] slots;
+        private final float[] scores;
+        private int count = 0;
+
+        TopK(int k) {
+            slots = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int slot, float score) {
+            if (count < slots.length) {
+                slots[count] = slot;
+                scores[count] = score;
+                siftUp(count++);
+            } else if (score > scores[0]) {
+                slots[0] = slot;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedSlots() {
+            int[] out = new int[count];
+            while (count > 0) {
+                out[count - 1] = slots[0];
+                count--;
+                slots[0] = slots[count];
+                scores[0] = scores[count];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[i] >= scores[parent]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= count) break;
+                int smallest = left + 1 < count && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int s = slots[a]; slots[a] = slots[b]; slots[b] = s;
+            float v = scores[a]; scores[a] = scores[b]; scores[b] = v;
+        }
+    }
+
+    private float dot(float[] query, int slot) {
+        if (int8Enabled) return floatRows.dot(query, slot);
+        int offset = slot * dimension;
+        float dot = 0f;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * vectors[offset + i];
+        }
+        return dot;
+    }
+
+    private int int8Dot(byte[] query, int slot) {
+        int offset = slot * dimension;
+        int dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * codes[offset + i];
+        }
+        return dot;
+    }
+
+    private static void normalize(float[] v, int from, int length) {
+        double norm = 0.0;
+        for (int i = from; i < from + length; i++) norm += v[i] * v[i];
+        if (norm == 0) return;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = from; i < from + length; i++) v[i] *= inv;
+    }
+
+    /**
+     * Symmetric int8 quantization of an already normalized row, so the dot product of two
+     * code rows times their scales approximates cosine similarity. Returns the scale.
+     */
+    private static float quantize(float[] source, int from, int length, byte[] target, int to) {
+        float maxAbs = 0f;
+        for (int i = 0; i < length; i++) {
+            maxAbs = Math.max(maxAbs, Math.abs(source[from + i]));
+        }
+        if (maxAbs == 0) {
+            Arrays.fill(target, to, to + length, (byte) 0);
+            return 0f;
+        }
+        float scale = maxAbs / 127f;
+        for (int i = 0; i < length; i++) {
+            target[to + i] = (byte) Math.round(source[from + i] / scale);
+        }
+        return scale;
+    }
+
+    // rows are addressed as slot * dimension in int arrays, so the capacity stops short of overflowing that
+    private void ensureCapacity(int rows) {
+        if (rows <= recipeIds.length) return;
+        int maxRows = MAX_ARRAY_LENGTH / Math.max(dimension, 1);
+        if (rows > maxRows) {
+            throw new RuntimeException("Vector index cannot hold " + rows + " rows of " + dimension + " dimensions");
+        }
+        long grown = Math.max(INITIAL_CAPACITY, recipeIds.length * 2L);
+        while (grown < rows) grown *= 2;
+        int capacity = (int) Math.min(grown, maxRows);
+        if (int8Enabled) {
+            if (floatRows == null) floatRows = new MappedFloatRows(rowsDirectory, dimension);
+            floatRows.ensureCapacity(capacity);
+            codes = Arrays.copyOf(codes, capacity * dimension);
+            codeScales = Arrays.copyOf(codeScales, capacity);
+        } else {
+            vectors = Arrays.copyOf(vectors, capacity * dimension);
+        }
+        recipeIds = Arrays.copyOf(recipeIds, capacity);
+    }
+}
@@ -1,67 +1,641 @@
 package heatH.heatHBack.service.implementation;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import heatH.heatHBack.model.EmbeddingVersion;
+import heatH.heatHBack.model.Ingredients;
 import heatH.heatHBack.model.RecipeEmbedding;
+import heatH.heatHBack.model.request.SearchFilters;
+import heatH.heatHBack.model.response.RecallReportResponse;
 import heatH.heatHBack.repository.RecipeEmbeddingRepository;
+import heatH.heatHBack.repository.EmbeddingReindexCheckpointRepository;
 import heatH.heatHBack.repository.RecipeRepository;
 import heatH.heatHBack.model.Recipe;
 
 @Service
 public class SemanticSearchService {
 
+    // embeddings created this close before a snapshot are replayed on the next start anyway,
+    // covering saves that were in flight while the snapshot was written
+    private static final long SNAPSHOT_SAFETY_MARGIN_MILLIS = 5 * 60 * 1000;
+
+    private static final int RRF_K = 60;
+    private static final int RRF_MIN_DEPTH = 50;
+    private static final int LEXICAL_LOAD_PAGE_SIZE = 500;
+    private static final Duration MIGRATION_EMBEDDING_TIMEOUT = Duration.ofSeconds(30);
+
+    private final EmbeddingBatcher embeddingBatcher;
     private final OpenAIService openAIService;
+    private final EmbeddingVersion servingVersion;
+    private final EmbeddingReindexCheckpointRepository checkpointRepo;
     private final RecipeEmbeddingRepository embeddingRepo;
     private final RecipeRepository recipeRepo;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final RecipeLexicalIndex lexicalIndex;
+    private final RecipeAttributeIndex attributeIndex;
+
+    private final boolean hnswEnabled;
+    private final int hnswM;
+    private final int hnswEfConstruction;
+    private final int hnswEfSearch;
+    private final double hnswCompactRatio;
+    private final int maxTopK;
+    private final Path snapshotPath;
+    private final Duration embeddingTimeout;
+
+    private final AtomicLong mutations = new AtomicLong();
+    private volatile long snapshottedMutations = -1;
+    private volatile RecipeVectorIndex vectorIndex;
+    private volatile HnswIndex hnswIndex;
+    // writers and readers hold the read side while they use vectorIndex and hnswIndex, so a rebuild
+    // swaps them between two uses, never during one, and nothing still holds the index it replaced
+    private final ReentrantReadWriteLock indexSwapLock = new ReentrantReadWriteLock();
+    private volatile Set<Long> changedDuringRebuild;
+    private volatile boolean indexLoaded = false;
+    private volatile boolean recipeIndexesLoaded = false;
 
-    public SemanticSearchService(OpenAIService openAIService,
+    public SemanticSearchService(EmbeddingBatcher embeddingBatcher,
+                                 OpenAIService openAIService,
                                  RecipeEmbeddingRepository embeddingRepo,
-                                 RecipeRepository recipeRepo) {
+                                 EmbeddingReindexCheckpointRepository checkpointRepo,
+                                 RecipeRepository recipeRepo,
+                                 RecipeVectorIndex vectorIndex,
+                                 QueryEmbeddingCache queryEmbeddingCache,
+                                 RecipeLexicalIndex lexicalIndex,
+                                 RecipeAttributeIndex attributeIndex,
+                                 @Value("${semantic-search.mode:exact}") String mode,
+                                 @Value("${semantic-search.hnsw.m:16}") int hnswM,
+                                 @Value("${semantic-search.hnsw.ef-construction:200}") int hnswEfConstruction,
+                                 @Value("${semantic-search.hnsw.ef-search:64}") int hnswEfSearch,
+                                 @Value("${semantic-search.hnsw.compact-ratio:0.2}") double hnswCompactRatio,
+                                 @Value("${semantic-search.max-top-k:100}") int maxTopK,
+                                 @Value("${semantic-search.snapshot.path:}") String snapshotPath,
+                                 @Value("${semantic-search.embedding-timeout-ms:1500}") long embeddingTimeoutMs) {
+        this.embeddingBatcher = embeddingBatcher;
         this.openAIService = openAIService;
+        this.servingVersion = openAIService.getEmbeddingVersion();
         this.embeddingRepo = embeddingRepo;
+        this.checkpointRepo = checkpointRepo;
         this.recipeRepo = recipeRepo;
+        this.vectorIndex = vectorIndex;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.lexicalIndex = lexicalIndex;
+        this.attributeIndex = attributeIndex;
+        this.hnswEnabled = "hnsw".equalsIgnoreCase(mode);
+        this.hnswM = hnswM;
+        this.hnswEfConstruction = hnswEfConstruction;
+        this.hnswEfSearch = hnswEfSearch;
+        this.hnswCompactRatio = hnswCompactRatio;
+        this.maxTopK = Math.max(1, maxTopK);
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : versionedPath(Path.of(snapshotPath), servingVersion);
+        this.embeddingTimeout = Duration.ofMillis(embeddingTimeoutMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpIndex() {
+        try {
+            ensureIndexLoaded();
+        } catch (Exception e) {
+            System.err.println("❌ Could not load recipe embeddings into the vector index: " + e.getMessage());
+        }
+        try {
+            ensureRecipeIndexesLoaded();
+        } catch (Exception e) {
+            System.err.println("❌ Could not load recipes into the lexical and filter indexes: " + e.getMessage());
+        }
     }
 
     public List<Recipe> search(String query, int topK) {
-        double[] qEmb = openAIService.createEmbedding(query);
-        List<RecipeEmbedding> all = embeddingRepo.findAll();
-
-        return all.stream()
-            .map(e -> Map.entry(e, cosineSimilarity(qEmb, e.getEmbedding())))
-            .sorted((a,b) -> Double.compare(b.getValue(), a.getValue()))
-            .limit(topK)
-            .map(e -> e.getKey().getRecipeId())
-            .filter(Objects::nonNull)
-            .map(recipeRepo::findById)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList());
-    }
-
-    private double cosineSimilarity(double[] a, double[] b) {
-        if (a == null || b == null) return 0.0;
-        int len = Math.min(a.length, b.length);
-        double dot = 0.0, na = 0.0, nb = 0.0;
-        for (int i = 0; i < len; i++) {
-            dot += a[i] * b[i];
-            na += a[i] * a[i];
-            nb += b[i] * b[i];
-        }
-        if (na == 0 || nb == 0) return 0.0;
-        return dot / (Math.sqrt(na) * Math.sqrt(nb));
+        return search(query, topK, "semantic");
+    }
+
+    public List<Recipe> search(String query, int topK, String mode) {
+        return search(query, topK, mode, null);
+    }
+
+    /**
+     * Searches in one of three modes: {@code semantic} ranks by embedding similarity,
+     * {@code lexical} by BM25 only and never calls OpenAI, and {@code hybrid} fuses both
+     * rankings with reciprocal rank fusion. If the query embedding cannot be obtained within
+     * the configured timeout, semantic and hybrid searches fall back to the lexical ranking.
+     * Filters are applied inside each index, so filtered results are still a full top-K.
+     * {@code topK} must be between 1 and the configured maximum, since the indexes size their
+     * result heaps by it.
+     */
+    public List<Recipe> search(String query, int topK, String mode, SearchFilters filters) {
+        if (topK <= 0 || topK > maxTopK) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "topK must be between 1 and " + maxTopK);
+        }
+        ensureRecipeIndexesLoaded();
+        LongPredicate filter = attributeIndex.matcher(filters);
+        if ("lexical".equalsIgnoreCase(mode)) {
+            return hydrate(lexicalIndex.search(query, topK, filter));
+        }
+
+        ensureIndexLoaded();
+        boolean hybrid = "hybrid".equalsIgnoreCase(mode);
+        int depth = hybrid ? (int) Math.max(Math.min(topK * 4L, Integer.MAX_VALUE), RRF_MIN_DEPTH) : topK;
+
+        double[] qEmb;
+        try {
+            qEmb = queryEmbeddingCache.getOrCompute(query, q -> embeddingBatcher.embed(q, embeddingTimeout));
+        } catch (Exception e) {
+            System.err.println("⚠️ Query embedding unavailable, answering \"" + query + "\" lexically: " + e.getMessage());
+            return hydrate(lexicalIndex.search(query, topK, filter));
+        }
+
+        List<Long> semanticIds = null;
+        int indexDimension;
+        indexSwapLock.readLock().lock();
+        try {
+            indexDimension = vectorIndex.dimension();
+            if (indexDimension <= 0 || qEmb.length == indexDimension) {
+                semanticIds = nearest(qEmb, depth, filter);
+            }
+        } finally {
+            indexSwapLock.readLock().unlock();
+        }
+        if (semanticIds == null) {
+            System.err.println("⚠️ Query embedding has " + qEmb.length + " dimensions but the index has "
+                    + indexDimension + ", answering \"" + query + "\" lexically");
+            return hydrate(lexicalIndex.search(query, topK, filter));
+        }
+        if (!hybrid) {
+            return hydrate(semanticIds);
+        }
+        return hydrate(reciprocalRankFusion(List.of(semanticIds, lexicalIndex.search(query, depth, filter)), topK));
+    }
+
+    // callers hold the read side of indexSwapLock; a selective filter, tombstoned nodes or a deleted entry point can leave the graph's candidate
+    // list short, so whenever the exact index holds more, fall back to the exact (filtered) scan
+    private List<Long> nearest(double[] query, int topK, LongPredicate filter) {
+        HnswIndex hnsw = hnswIndex;
+        RecipeVectorIndex exact = vectorIndex;
+        if (hnsw != null) {
+            List<Long> ids = hnsw.search(query, topK, hnswEfSearch, filter);
+            if (ids.size() >= Math.min(topK, exact.size())) return ids;
+        }
+        return exact.nearest(query, topK, filter);
+    }
+
+    // each list contributes 1 / (k + rank) per recipe; recipes ranked well in both rise to the top
+    static List<Long> reciprocalRankFusion(List<List<Long>> rankings, int topK) {
+        Map<Long, Double> fused = new HashMap<>();
+        for (List<Long> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                fused.merge(ranking.get(rank), 1.0 / (RRF_K + rank + 1), Double::sum);
+            }
+        }
+        return fused.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(topK)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    // loads all hits with their collections in a fixed number of queries, then restores rank order
+    private List<Recipe> hydrate(List<Long> rankedIds) {
+        Map<Long, Recipe> byId = recipeRepo.findAllWithCollectionsByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(Recipe::getId, r -> r, (a, b) -> a));
+        return rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Measures how many of the exact top-K neighbours the HNSW graph finds for each efSearch,
+     * using stored recipe embeddings as queries so no OpenAI calls are made.
+     */
+    public RecallReportResponse recallReport(int sampleSize, int topK, List<Integer> efSearchValues) {
+        ensureIndexLoaded();
+        // held for the whole report, so a rebuild cannot close the index it is measuring
+        indexSwapLock.readLock().lock();
+        try {
+            HnswIndex hnsw = hnswIndex != null ? hnswIndex : buildHnswIndex(vectorIndex);
+
+            List<Long> ids = new ArrayList<>(vectorIndex.recipeIds());
+            Collections.shuffle(ids, new Random(42));
+            List<double[]> queries = ids.stream()
+                    .limit(Math.max(0, sampleSize))
+                    .map(vectorIndex::vectorOf)
+                    .filter(Optional::isPresent)
+                    .map(v -> toDoubles(v.get()))
+                    .toList();
+            List<Set<Long>> exact = queries.stream()
+                    .map(q -> (Set<Long>) new HashSet<>(vectorIndex.nearest(q, topK)))
+                    .toList();
+
+            List<RecallReportResponse.Entry> entries = new ArrayList<>();
+            for (int ef : efSearchValues) {
+                long[] latencies = new long[queries.size()];
+                long hits = 0, expected = 0;
+                for (int i = 0; i < queries.size(); i++) {
+                    long start = System.nanoTime();
+                    List<Long> approx = hnsw.search(queries.get(i), topK, ef);
+                    latencies[i] = System.nanoTime() - start;
+
+                    Set<Long> truth = exact.get(i);
+                    expected += truth.size();
+                    for (Long id : approx) {
+                        if (truth.contains(id)) hits++;
+                    }
+                }
+                Arrays.sort(latencies);
+
+                RecallReportResponse.Entry entry = new RecallReportResponse.Entry();
+                entry.setEfSearch(ef);
+                entry.setRecall(expected == 0 ? 1.0 : (double) hits / expected);
+                entry.setP50Micros(percentile(latencies, 0.50) / 1000.0);
+                entry.setP99Micros(percentile(latencies, 0.99) / 1000.0);
+                entries.add(entry);
+            }
+
+            RecallReportResponse report = new RecallReportResponse();
+            report.setIndexSize(hnsw.liveSize());
+            report.setSampleSize(queries.size());
+            report.setTopK(topK);
+            report.setM(hnsw.getM());
+            report.setEfConstruction(hnsw.getEfConstruction());
+            report.setEntries(entries);
+            return report;
+        } finally {
+            indexSwapLock.readLock().unlock();
+        }
+    }
+
+    // loads the on-disk snapshot (or every stored embedding) once; later changes are applied in place
+    private void ensureIndexLoaded() {
+        if (indexLoaded) return;
+        synchronized (this) {
+            if (indexLoaded) return;
+            long start = System.currentTimeMillis();
+            long mutationsAtStart = mutations.get();
+
+            Optional<Long> cutoff = readSnapshot();
+            int replayed;
+            int removed = 0;
+            if (cutoff.isPresent()) {
+                LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(cutoff.get()), ZoneId.systemDefault());
+                try (Stream<RecipeEmbedding> embeddings = embeddingRepo.streamByCreatedAtAfter(since)) {
+                    replayed = loadServingVersion(vectorIndex, embeddings);
+                }
+                removed = removeDeletedRecipes();
+            } else {
+                vectorIndex.clear();
+                try (Stream<RecipeEmbedding> embeddings = embeddingRepo.streamAllBy()) {
+                    replayed = loadServingVersion(vectorIndex, embeddings);
+                }
+            }
+            if (hnswEnabled) {
+                hnswIndex = buildHnswIndex(vectorIndex);
+            }
+            indexLoaded = true;
+            System.out.println("✅ Loaded " + vectorIndex.size() + " recipe embeddings into the vector index in "
+                    + (System.currentTimeMillis() - start) + " ms"
+                    + (cutoff.isPresent() ? " (snapshot + " + replayed + " newer, " + removed + " deleted)" : ""));
+
+            if (cutoff.isEmpty() || replayed > 0 || removed > 0) {
+                writeSnapshot();
+            } else {
+                snapshottedMutations = mutationsAtStart;
+            }
+        }
+    }
+
+    /**
+     * The replay after a snapshot only sees embeddings saved since, so recipes deleted in the
+     * meantime would stay searchable. Walks the recipe ids in order, merged against the sorted
+     * ids of the index, and removes every indexed recipe that no longer exists. Returns the count.
+     */
+    private int removeDeletedRecipes() {
+        long[] indexed = vectorIndex.recipeIds().stream().mapToLong(Long::longValue).sorted().toArray();
+        int next = 0;
+        int removed = 0;
+        long after = 0;
+        List<Long> ids;
+        do {
+            ids = recipeRepo.findIdsAfter(after, PageRequest.of(0, LEXICAL_LOAD_PAGE_SIZE));
+            for (Long id : ids) {
+                while (next < indexed.length && indexed[next] < id) {
+                    vectorIndex.remove(indexed[next++]);
+                    removed++;
+                }
+                if (next < indexed.length && indexed[next] == id) next++;
+            }
+            if (!ids.isEmpty()) after = ids.get(ids.size() - 1);
+        } while (ids.size() == LEXICAL_LOAD_PAGE_SIZE);
+        while (next < indexed.length) {
+            vectorIndex.remove(indexed[next++]);
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * Puts the embeddings of the serving version into the vector index and skips the rest, so
+     * vectors from another model or dimension never meet a query embedding. Returns how many
+     * were loaded, and warns when the store holds more than one version.
+     */
+    private int loadServingVersion(RecipeVectorIndex target, Stream<RecipeEmbedding> embeddings) {
+        Map<String, Long> skipped = new TreeMap<>();
+        int loaded = 0;
+        for (RecipeEmbedding e : (Iterable<RecipeEmbedding>) embeddings::iterator) {
+            EmbeddingVersion version = EmbeddingVersion.of(e, servingVersion.model());
+            if (!version.equals(servingVersion)) {
+                skipped.merge(version.key(), 1L, Long::sum);
+            } else if (target.put(e.getRecipeId(), e.getEmbedding())) {
+                loaded++;
+            }
+        }
+        if (!skipped.isEmpty()) {
+            System.err.println("⚠️ Mixed embedding versions: serving " + servingVersion.key() + ", skipped " + skipped
+                    + ". Run POST /api/admin/search/reindex to migrate them.");
+        }
+        return loaded;
+    }
+
+    // walks the recipe table by id so each page is one id query plus one fetch-joined recipe query
+    private void ensureRecipeIndexesLoaded() {
+        if (recipeIndexesLoaded) return;
+        synchronized (lexicalIndex) {
+            if (recipeIndexesLoaded) return;
+            lexicalIndex.clear();
+            attributeIndex.clear();
+            long after = 0;
+            List<Long> ids;
+            do {
+                ids = recipeRepo.findIdsAfter(after, PageRequest.of(0, LEXICAL_LOAD_PAGE_SIZE));
+                if (ids.isEmpty()) break;
+                recipeRepo.findAllWithIngredientsByIdIn(ids).forEach(recipe -> {
+                    lexicalIndex.put(recipe);
+                    attributeIndex.put(recipe);
+                });
+                after = ids.get(ids.size() - 1);
+            } while (ids.size() == LEXICAL_LOAD_PAGE_SIZE);
+            recipeIndexesLoaded = true;
+            System.out.println("✅ Loaded " + lexicalIndex.size() + " recipes into the lexical and filter indexes");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${semantic-search.snapshot.interval-ms:3600000}",
+               initialDelayString = "${semantic-search.snapshot.interval-ms:3600000}")
+    public void writeSnapshotIfChanged() {
+        if (indexLoaded && mutations.get() != snapshottedMutations) {
+            writeSnapshot();
+        }
+    }
+
+    // every update or delete leaves a tombstone in the graph; rebuild it once they pile up
+    @Scheduled(fixedDelayString = "${semantic-search.hnsw.compact-check-ms:60000}")
+    public void compactHnswIfNeeded() {
+        HnswIndex hnsw = hnswIndex;
+        if (hnsw == null || !hnsw.needsCompaction(hnswCompactRatio)) return;
+        long start = System.currentTimeMillis();
+        int tombstones = hnsw.deletedCount();
+        if (hnsw.compact()) {
+            System.out.println("✅ Compacted the HNSW graph, dropping " + tombstones + " tombstones in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    @PreDestroy
+    public void writeSnapshotOnShutdown() {
+        writeSnapshotIfChanged();
+        // an index built by rebuildVectorIndex is not a bean, so its scratch file is released here
+        vectorIndex.close();
+    }
+
+    private Optional<Long> readSnapshot() {
+        if (snapshotPath == null) return Optional.empty();
+        try {
+            return vectorIndex.readSnapshot(snapshotPath);
+        } catch (Exception e) {
+            System.err.println("⚠️ Ignoring unreadable vector snapshot " + snapshotPath + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // deletes after the cutoff are reconciled against the recipe table when the snapshot is loaded
+    private void writeSnapshot() {
+        if (snapshotPath == null) return;
+        long mutationsAtStart = mutations.get();
+        indexSwapLock.readLock().lock();
+        try {
+            vectorIndex.writeSnapshot(snapshotPath, System.currentTimeMillis() - SNAPSHOT_SAFETY_MARGIN_MILLIS);
+            snapshottedMutations = mutationsAtStart;
+        } catch (Exception e) {
+            System.err.println("❌ Could not write vector snapshot " + snapshotPath + ": " + e.getMessage());
+        } finally {
+            indexSwapLock.readLock().unlock();
+        }
+    }
+
+    private HnswIndex buildHnswIndex(RecipeVectorIndex source) {
+        HnswIndex hnsw = new HnswIndex(hnswM, hnswEfConstruction, 42L);
+        source.forEach(hnsw::put);
+        return hnsw;
+    }
+
+    // data/recipe-vectors.snapshot -> data/recipe-vectors.text-embedding-3-small-256.snapshot
+    private static Path versionedPath(Path path, EmbeddingVersion version) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String tag = (version.model() + "-" + version.dimensions()).replaceAll("[^A-Za-z0-9._-]", "_");
+        return path.resolveSibling(dot > 0
+                ? name.substring(0, dot) + "." + tag + name.substring(dot)
+                : name + "." + tag);
+    }
+
+    private static double[] toDoubles(float[] v) {
+        double[] d = new double[v.length];
+        for (int i = 0; i < v.length; i++) d[i] = v[i];
+        return d;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    /** The text a recipe is embedded from: its title followed by its ingredient names. */
+    public static String embeddingText(Recipe recipe) {
+        String ingredientsText = recipe.getIngredients() == null ? "" : recipe.getIngredients().stream()
+                .map(Ingredients::getName)
+                .collect(Collectors.joining(", "));
+        return recipe.getTitle() + " " + ingredientsText;
+    }
+
+    /**
+     * Applies embeddings that were already written to Mongo (e.g. by the bulk re-index) to the
+     * in-memory indexes. Returns how many were accepted; embeddings whose dimension differs from
+     * the loaded index are rejected until the index is rebuilt.
+     */
+    public int indexEmbeddings(Map<Long, double[]> embeddings) {
+        if (!indexLoaded) return 0; // the initial load reads them from Mongo
+        int accepted = 0;
+        for (Map.Entry<Long, double[]> entry : embeddings.entrySet()) {
+            if (applyToIndexes(entry.getKey(), entry.getValue())) accepted++;
+        }
+        return accepted;
+    }
+
+    /**
+     * Reloads the vector index from Mongo, ignoring the snapshot; used after the embedding model
+     * changed. The new vector index and graph are built next to the live ones, which keep serving
+     * searches, and are swapped in together. Recipes written meanwhile are re-read from Mongo into
+     * the new index just before the swap, so no write is lost to the old one.
+     */
+    public void rebuildVectorIndex() {
+        RecipeVectorIndex previous;
+        synchronized (this) {
+            long start = System.currentTimeMillis();
+            changedDuringRebuild = ConcurrentHashMap.newKeySet();
+            RecipeVectorIndex next = vectorIndex.emptyCopy();
+            try {
+                try (Stream<RecipeEmbedding> embeddings = embeddingRepo.streamAllBy()) {
+                    loadServingVersion(next, embeddings);
+                }
+                HnswIndex nextHnsw = hnswEnabled ? buildHnswIndex(next) : null;
+
+                indexSwapLock.writeLock().lock();
+                try {
+                    for (Long recipeId : changedDuringRebuild) {
+                        Optional<double[]> stored = servingEmbedding(recipeId);
+                        if (stored.isPresent() && next.put(recipeId, stored.get())) {
+                            if (nextHnsw != null) nextHnsw.put(recipeId, stored.get());
+                        } else {
+                            next.remove(recipeId);
+                            if (nextHnsw != null) nextHnsw.remove(recipeId);
+                        }
+                    }
+                    previous = vectorIndex;
+                    vectorIndex = next;
+                    hnswIndex = nextHnsw;
+                    indexLoaded = true;
+                    mutations.incrementAndGet();
+                } finally {
+                    indexSwapLock.writeLock().unlock();
+                }
+            } catch (RuntimeException e) {
+                next.close();
+                throw e;
+            } finally {
+                changedDuringRebuild = null;
+            }
+            System.out.println("✅ Rebuilt the vector index with " + next.size() + " recipe embeddings in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        // readers only reach the index while holding the read side, and the swap above held the
+        // write side, so no search or snapshot can still be using the old index here
+        previous.close();
+        writeSnapshot();
+    }
+
+    private Optional<double[]> servingEmbedding(Long recipeId) {
+        return embeddingRepo.findAllByRecipeId(recipeId).stream()
+                .filter(e -> EmbeddingVersion.of(e, servingVersion.model()).equals(servingVersion))
+                .map(RecipeEmbedding::getEmbedding)
+                .findFirst();
+    }
+
+    // puts (or, for a null embedding, removes) one recipe in both indexes; false if the vector index rejected it
+    private boolean applyToIndexes(Long recipeId, double[] embedding) {
+        indexSwapLock.readLock().lock();
+        try {
+            Set<Long> changed = changedDuringRebuild;
+            if (changed != null) changed.add(recipeId);
+            mutations.incrementAndGet();
+            HnswIndex hnsw = hnswIndex;
+            if (embedding == null) {
+                vectorIndex.remove(recipeId);
+                if (hnsw != null) hnsw.remove(recipeId);
+                return true;
+            }
+            if (!vectorIndex.put(recipeId, embedding)) return false;
+            if (hnsw != null) hnsw.put(recipeId, embedding);
+            return true;
+        } finally {
+            indexSwapLock.readLock().unlock();
+        }
+    }
+
+    public void indexRecipe(Recipe recipe) {
+        lexicalIndex.put(recipe);
+        attributeIndex.put(recipe);
+    }
+
+    public void removeRecipeFromIndexes(Long recipeId) {
+        lexicalIndex.remove(recipeId);
+        attributeIndex.remove(recipeId);
+    }
+
+    public EmbeddingVersion getServingVersion() {
+        return servingVersion;
     }
 
     // helper to persist embedding after recipe creation/update
     public void saveEmbeddingForRecipe(Long recipeId, double[] embedding) {
-        RecipeEmbedding re = new RecipeEmbedding(recipeId, embedding);
-        embeddingRepo.save(re);
+        replaceStoredEmbedding(recipeId, embedding, servingVersion);
+        applyToIndexes(recipeId, embedding);
+    }
+
+    /**
+     * During a migration the re-index job writes the target version for every recipe it passes,
+     * but a recipe enriched after the job passed its id would only get the serving version and
+     * be missing once the application switches. So while the re-index checkpoint names another
+     * version (running, paused, failed or completed but not yet switched to), enrichment also
+     * embeds the recipe for that version here. Nothing is done outside a migration.
+     */
+    public void saveMigrationEmbedding(Long recipeId, String text) {
+        Optional<EmbeddingVersion> target = migrationTarget();
+        if (target.isEmpty()) return;
+        double[] embedding = openAIService.createEmbeddings(List.of(text), MIGRATION_EMBEDDING_TIMEOUT, target.get()).get(0);
+        replaceStoredEmbedding(recipeId, embedding, target.get());
+    }
+
+    private Optional<EmbeddingVersion> migrationTarget() {
+        return checkpointRepo.findById(EmbeddingReindexService.CHECKPOINT_ID)
+                .map(checkpoint -> new EmbeddingVersion(checkpoint.getModel(), checkpoint.getDimensions()))
+                .filter(version -> version.model() != null && !version.equals(servingVersion));
+    }
+
+    // one document per recipe and version, so a retried enrichment or a concurrent re-index page never leaves two
+    private void replaceStoredEmbedding(Long recipeId, double[] embedding, EmbeddingVersion version) {
+        List<RecipeEmbedding> sameVersion = embeddingRepo.findAllByRecipeId(recipeId).stream()
+                .filter(e -> EmbeddingVersion.of(e, servingVersion.model()).equals(version))
+                .toList();
+        if (!sameVersion.isEmpty()) embeddingRepo.deleteAll(sameVersion);
+        embeddingRepo.save(new RecipeEmbedding(recipeId, embedding, version));
     }
 
+    // drops every stored version, including a migration target written next to the serving one
     public void deleteEmbeddingForRecipe(Long recipeId) {
         if (recipeId == null) return;
-        embeddingRepo.findByRecipeId(recipeId).ifPresent(embeddingRepo::delete);
+        List<RecipeEmbedding> stored = embeddingRepo.findAllByRecipeId(recipeId);
+        if (!stored.isEmpty()) embeddingRepo.deleteAll(stored);
+        applyToIndexes(recipeId, null);
     }
-}
\ No newline at end of file
+}
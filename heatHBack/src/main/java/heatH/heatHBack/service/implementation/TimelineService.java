@@ -0,0 +1,185 @@
+package heatH.heatHBack.service.implementation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import heatH.heatHBack.model.Feed;
+import heatH.heatHBack.model.FeedCursor;
+import heatH.heatHBack.model.Follow;
+import heatH.heatHBack.model.TimelineEntry;
+import heatH.heatHBack.model.User;
+import heatH.heatHBack.repository.FeedRepository;
+import heatH.heatHBack.repository.FollowRepository;
+import heatH.heatHBack.repository.TimelineEntryRepository;
+import heatH.heatHBack.repository.UserRepository;
+
+/**
+ * Per-user home timelines with hybrid fan-out. A post by an account with at most
+ * fanOutThreshold followers is pushed into every follower's home_timeline when it is
+ * created; posts by bigger accounts are not copied, and are pulled from the feed table and
+ * merged in when a follower reads their timeline. Which way a post went is recorded on the
+ * feed at post time (Feed.fannedOut), so an account crossing the threshold later in either
+ * direction loses none of its earlier posts. Either way a read is a bounded range scan: one
+ * page of home_timeline, plus at most one page per pulled account.
+ */
+@Service
+public class TimelineService {
+
+    private final TimelineEntryRepository timelineRepository;
+    private final FollowRepository followRepository;
+    private final FeedRepository feedRepository;
+    private final UserRepository userRepository;
+
+    private final int fanOutThreshold;
+    private final int backfillSize;
+    private final int retentionDays;
+
+    public TimelineService(TimelineEntryRepository timelineRepository,
+                           FollowRepository followRepository,
+                           FeedRepository feedRepository,
+                           UserRepository userRepository,
+                           @Value("${timeline.fan-out-threshold:10000}") int fanOutThreshold,
+                           @Value("${timeline.backfill-size:50}") int backfillSize,
+                           @Value("${timeline.retention-days:90}") int retentionDays) {
+        this.timelineRepository = timelineRepository;
+        this.followRepository = followRepository;
+        this.feedRepository = feedRepository;
+        this.userRepository = userRepository;
+        this.fanOutThreshold = fanOutThreshold;
+        this.backfillSize = backfillSize;
+        this.retentionDays = retentionDays;
+    }
+
+    /** Whether a post the author makes now is pushed to followers; stored on the feed before it is saved. */
+    public boolean fansOut(User author) {
+        return followerCount(author) <= fanOutThreshold;
+    }
+
+    /**
+     * Saves a new post and puts it into the timelines in the same transaction, so a fan-out that
+     * fails rolls the post back instead of committing it where no follower will ever see it.
+     */
+    @Transactional
+    public Feed publish(Feed feed, User author) {
+        feed.setFannedOut(fansOut(author));
+        Feed saved = feedRepository.save(feed);
+        onFeedCreated(saved, author);
+        return saved;
+    }
+
+    /** Puts a new post into its author's own timeline and, if it fans out, into every follower's. */
+    @Transactional
+    public void onFeedCreated(Feed feed, User author) {
+        timelineRepository.insertEntry(author.getId(), feed.getId(), author.getId(), feed.getCreatedAt());
+        if (!Boolean.FALSE.equals(feed.getFannedOut())) {
+            timelineRepository.fanOutToFollowers(feed.getId(), author.getId(), feed.getCreatedAt());
+        } else if (!Boolean.TRUE.equals(author.getHasPulledFeeds())) {
+            userRepository.markHasPulledFeeds(author.getId());
+            author.setHasPulledFeeds(true);
+        }
+    }
+
+    @Transactional
+    public void onFeedsDeleted(List<Feed> feeds) {
+        if (feeds.isEmpty()) return;
+        timelineRepository.deleteByFeedIdIn(feeds.stream().map(Feed::getId).toList());
+    }
+
+    /** Follows an account and copies its latest fanned-out posts into the follower's timeline. */
+    @Transactional
+    public void follow(User follower, Long followeeId) {
+        if (follower.getId().equals(followeeId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Users cannot follow themselves");
+        }
+        if (!userRepository.existsById(followeeId)) {
+            throw new RuntimeException("User not found");
+        }
+        if (followRepository.existsByFollowerIdAndFolloweeId(follower.getId(), followeeId)) return;
+
+        Follow follow = new Follow();
+        follow.setFollowerId(follower.getId());
+        follow.setFolloweeId(followeeId);
+        follow.setCreatedAt(LocalDateTime.now());
+        followRepository.save(follow);
+        userRepository.adjustFollowerCount(followeeId, 1);
+
+        // posts that were not fanned out are pulled at read time anyway
+        timelineRepository.backfill(follower.getId(), followeeId, backfillSize);
+    }
+
+    @Transactional
+    public void unfollow(User follower, Long followeeId) {
+        if (followRepository.deleteFollow(follower.getId(), followeeId) == 0) return;
+        userRepository.adjustFollowerCount(followeeId, -1);
+        timelineRepository.deleteByUserIdAndAuthorId(follower.getId(), followeeId);
+    }
+
+    /**
+     * One page of the user's home timeline, newest first, continuing after {@code after}.
+     * Precomputed entries and the pulled posts of followed accounts are each read as one
+     * keyset page, merged by (createdAt, id), and the feeds of the winning entries are loaded
+     * in one query. Feeds deleted since they were fanned out are skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Feed> homeTimeline(User user, FeedCursor after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        Slice<TimelineEntry> pushed = after == null
+                ? timelineRepository.findByUserIdOrderByCreatedAtDescFeedIdDesc(user.getId(), pageable)
+                : timelineRepository.findPageAfter(user.getId(), after.createdAt(), after.id(), pageable);
+
+        List<Long> pulledIds = after == null
+                ? feedRepository.findPulledFeedIds(user.getId(), limit + 1)
+                : feedRepository.findPulledFeedIdsAfter(user.getId(), after.createdAt(), after.id(), limit + 1);
+        List<Feed> pulled = pulledIds.isEmpty() ? List.of() : feedRepository.findByIdIn(pulledIds);
+
+        Map<Long, FeedCursor> candidates = new HashMap<>();
+        pushed.forEach(entry -> candidates.put(entry.getFeedId(), new FeedCursor(entry.getCreatedAt(), entry.getFeedId())));
+        pulled.forEach(feed -> candidates.put(feed.getId(), FeedCursor.after(feed)));
+        List<FeedCursor> merged = new ArrayList<>(candidates.values());
+        merged.sort(Comparator.comparing(FeedCursor::createdAt).thenComparing(FeedCursor::id).reversed());
+        boolean hasMore = merged.size() > limit || pushed.hasNext() || pulledIds.size() > limit;
+        if (merged.size() > limit) merged = merged.subList(0, limit);
+
+        Map<Long, Feed> feeds = new HashMap<>();
+        pulled.forEach(feed -> feeds.put(feed.getId(), feed));
+        List<Long> missing = merged.stream().map(FeedCursor::id).filter(id -> !feeds.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            feedRepository.findByIdIn(missing).forEach(feed -> feeds.put(feed.getId(), feed));
+        }
+
+        Map<Long, Feed> ordered = new LinkedHashMap<>();
+        for (FeedCursor entry : merged) {
+            Feed feed = feeds.get(entry.id());
+            if (feed != null) ordered.put(entry.id(), feed);
+        }
+        return new SliceImpl<>(new ArrayList<>(ordered.values()), pageable, hasMore);
+    }
+
+    // timelines only need to reach back so far; the feed table still has everything
+    @Scheduled(fixedDelayString = "${timeline.trim-interval-ms:3600000}")
+    @Transactional
+    public void trimTimelines() {
+        int deleted = timelineRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) System.out.println("✅ Trimmed " + deleted + " home timeline entries older than " + retentionDays + " days");
+    }
+
+    private static int followerCount(User user) {
+        return user.getFollowerCount() != null ? user.getFollowerCount() : 0;
+    }
+}
@@ -0,0 +1,86 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.Ingredients;
+import heatH.heatHBack.model.MeasurementTypes;
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.NutritionProfile;
+import heatH.heatHBack.service.implementation.CalorieService;
+import heatH.heatHBack.service.implementation.IngredientNutritionCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for CalorieService.calculateNutritionProfile
+ */
+public class CalorieServiceTest {
+
+    @Test
+    void calculateNutritionProfile_resolvesEachIngredientOnceAndScalesByGrams() {
+        IngredientNutritionCache nutritionCache = mock(IngredientNutritionCache.class);
+        when(nutritionCache.getFoodNutrition("flour")).thenReturn(Optional.of(
+                facts("Flour", 364, 76, 1, 10, 1.2)));
+        when(nutritionCache.getFoodNutrition("unicorn")).thenReturn(Optional.empty());
+        CalorieService calorieService = new CalorieService(nutritionCache);
+
+        NutritionProfile profile = calorieService.calculateNutritionProfile(List.of(
+                ingredient("flour", 1, MeasurementTypes.CUP),
+                ingredient("unicorn", 50, MeasurementTypes.GRAM)));
+
+        assertEquals(728, profile.getTotalCalorie());
+        assertEquals(152.0, profile.getNutritionData().getCarbs());
+        assertEquals(2.4, profile.getNutritionData().getIron());
+        assertEquals(0.0, profile.getNutritionData().getSodium());
+        assertEquals(2, profile.getIngredients().size());
+        assertTrue(profile.getIngredients().get(0).isResolved());
+        assertEquals(200.0, profile.getIngredients().get(0).getGrams());
+        assertFalse(profile.getIngredients().get(1).isResolved());
+        verify(nutritionCache, times(1)).getFoodNutrition("flour");
+        verify(nutritionCache, times(1)).getFoodNutrition("unicorn");
+    }
+
+    @Test
+    void calculateNutritionProfile_keepsIngredientOrderAndDropsTimedOutLookups() {
+        IngredientNutritionCache nutritionCache = mock(IngredientNutritionCache.class);
+        when(nutritionCache.getFoodNutrition("rice")).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return Optional.of(facts("Rice", 130, 28, 0.3, 2.7, 0.2));
+        });
+        when(nutritionCache.getFoodNutrition("egg")).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return Optional.of(facts("Egg", 143, 0.7, 9.5, 12.6, 1.8));
+        });
+        when(nutritionCache.getFoodNutrition("milk")).thenReturn(Optional.of(facts("Milk", 42, 5, 1, 3.4, 0)));
+        CalorieService calorieService = new CalorieService(nutritionCache, 4, 2, 300);
+
+        NutritionProfile profile = calorieService.calculateNutritionProfile(List.of(
+                ingredient("rice", 100, MeasurementTypes.GRAM),
+                ingredient("egg", 100, MeasurementTypes.GRAM),
+                ingredient("milk", 100, MeasurementTypes.GRAM)));
+
+        assertEquals(185, profile.getTotalCalorie());
+        assertEquals(List.of("rice", "egg", "milk"),
+                profile.getIngredients().stream().map(NutritionProfile.IngredientBreakdown::getName).toList());
+        assertFalse(profile.getIngredients().get(0).isResolved());
+        assertEquals(143, profile.getIngredients().get(1).getCalories());
+        calorieService.shutdown();
+    }
+
+    private static NutritionFacts facts(String name, double calories, double carbs, double fat, double protein, double iron) {
+        return new NutritionFacts(name, 100, calories, protein, fat, carbs, 0, 0, 0, 0, 0, 0, 0, iron);
+    }
+
+    private static Ingredients ingredient(String name, int quantity, MeasurementTypes type) {
+        Ingredients ingredient = new Ingredients();
+        ingredient.setName(name);
+        ingredient.setQuantity(quantity);
+        ingredient.setType(type);
+        return ingredient;
+    }
+}
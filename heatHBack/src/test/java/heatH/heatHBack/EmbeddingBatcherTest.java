@@ -0,0 +1,63 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.service.implementation.EmbeddingBatcher;
+import heatH.heatHBack.service.implementation.OpenAIService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for EmbeddingBatcher
+ */
+public class EmbeddingBatcherTest {
+
+    private EmbeddingBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    @Test
+    void submit_coalescesRequestsWithinLingerWindowAndDedupesTexts() {
+        OpenAIService openAIService = mock(OpenAIService.class);
+        when(openAIService.createEmbeddings(anyList(), any())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return texts.stream().map(t -> new double[]{t.length()}).toList();
+        });
+        batcher = new EmbeddingBatcher(openAIService, true, 16, 200, 2, 10_000);
+
+        CompletableFuture<double[]> pasta = batcher.submit("pasta");
+        CompletableFuture<double[]> soup = batcher.submit("tomato soup");
+        CompletableFuture<double[]> pastaAgain = batcher.submit("pasta");
+
+        assertArrayEquals(new double[]{5}, pasta.join());
+        assertArrayEquals(new double[]{11}, soup.join());
+        assertArrayEquals(new double[]{5}, pastaAgain.join());
+        verify(openAIService, times(1)).createEmbeddings(List.of("pasta", "tomato soup"), Duration.ofMillis(10_000));
+        assertEquals(3, batcher.stats().getRequests());
+        assertEquals(1, batcher.stats().getBatches());
+    }
+
+    @Test
+    void embed_callsOpenAIDirectlyWhenBatchingIsDisabled() {
+        OpenAIService openAIService = mock(OpenAIService.class);
+        when(openAIService.createEmbedding("pasta", null)).thenReturn(new double[]{1.0});
+        batcher = new EmbeddingBatcher(openAIService, false, 16, 5, 2, 10_000);
+
+        assertArrayEquals(new double[]{1.0}, batcher.embed("pasta"));
+        verify(openAIService, times(0)).createEmbeddings(anyList(), any());
+    }
+}
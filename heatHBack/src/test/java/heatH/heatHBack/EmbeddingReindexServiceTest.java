@@ -0,0 +1,133 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.EmbeddingReindexCheckpoint;
+import heatH.heatHBack.model.EmbeddingVersion;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.RecipeEmbedding;
+import heatH.heatHBack.repository.EmbeddingReindexCheckpointRepository;
+import heatH.heatHBack.repository.RecipeRepository;
+import heatH.heatHBack.service.implementation.EmbeddingReindexService;
+import heatH.heatHBack.service.implementation.OpenAIService;
+import heatH.heatHBack.service.implementation.SemanticSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for EmbeddingReindexService
+ */
+public class EmbeddingReindexServiceTest {
+
+    private RecipeRepository recipeRepository;
+    private OpenAIService openAIService;
+    private EmbeddingReindexCheckpointRepository checkpointRepository;
+    private SemanticSearchService semanticSearchService;
+    private BulkOperations bulk;
+    private EmbeddingReindexService reindexService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        openAIService = mock(OpenAIService.class);
+        checkpointRepository = mock(EmbeddingReindexCheckpointRepository.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.indexOps(RecipeEmbedding.class)).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(RecipeEmbedding.class))).thenReturn(bulk);
+
+        semanticSearchService = mock(SemanticSearchService.class);
+        when(semanticSearchService.getServingVersion()).thenReturn(new EmbeddingVersion("text-embedding-3-small", 2));
+        when(openAIService.createEmbeddings(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return texts.stream().map(t -> new double[]{1.0, 0.0}).toList();
+        });
+        when(recipeRepository.findAllWithIngredientsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Recipe> recipes = new ArrayList<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                Recipe recipe = new Recipe();
+                recipe.setId(id);
+                recipe.setTitle("Recipe " + id);
+                recipe.setIngredients(List.of());
+                recipes.add(recipe);
+            }
+            return recipes;
+        });
+        reindexService = new EmbeddingReindexService(recipeRepository, openAIService, semanticSearchService,
+                mongoTemplate, checkpointRepository, 3, 2, 60_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reindexService.shutdown();
+    }
+
+    @Test
+    void start_embedsPagesInBatchesAndCheckpointsEachPage() {
+        when(recipeRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(recipeRepository.findIdsAfter(eq(3L), any(Pageable.class))).thenReturn(List.of(4L));
+
+        reindexService.start(true);
+
+        verify(checkpointRepository, timeout(2000).atLeastOnce()).save(argThat(c ->
+                c.getStatus() == EmbeddingReindexCheckpoint.Status.COMPLETED));
+        // pages of 3 and 1 recipes with at most 2 texts per request
+        verify(openAIService, times(3)).createEmbeddings(anyList(), any(), eq(new EmbeddingVersion("text-embedding-3-small", 2)));
+        verify(bulk, times(2)).execute();
+        ArgumentCaptor<EmbeddingReindexCheckpoint> saved = ArgumentCaptor.forClass(EmbeddingReindexCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(saved.capture());
+        assertEquals(4L, saved.getValue().getLastRecipeId());
+        assertEquals(4L, saved.getValue().getProcessedRecipes());
+    }
+
+    @Test
+    void start_resumesAfterTheCheckpointedRecipe() {
+        EmbeddingReindexCheckpoint checkpoint = new EmbeddingReindexCheckpoint();
+        checkpoint.setId("recipe-embeddings");
+        checkpoint.setModel("text-embedding-3-small");
+        checkpoint.setDimensions(2);
+        checkpoint.setStatus(EmbeddingReindexCheckpoint.Status.PAUSED);
+        checkpoint.setLastRecipeId(3L);
+        checkpoint.setProcessedRecipes(3L);
+        when(checkpointRepository.findById("recipe-embeddings")).thenReturn(Optional.of(checkpoint));
+        when(recipeRepository.findIdsAfter(eq(3L), any(Pageable.class))).thenReturn(List.of(4L));
+
+        reindexService.start(false);
+
+        verify(checkpointRepository, timeout(2000).atLeastOnce()).save(argThat(c ->
+                c.getStatus() == EmbeddingReindexCheckpoint.Status.COMPLETED));
+        verify(recipeRepository, never()).findIdsAfter(eq(0L), any(Pageable.class));
+        assertEquals(4L, checkpoint.getLastRecipeId());
+        assertEquals(4L, checkpoint.getProcessedRecipes());
+    }
+
+    @Test
+    void start_withOtherDimensions_writesNewVersionWithoutTouchingTheLiveIndex() {
+        when(recipeRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L));
+        EmbeddingVersion target = new EmbeddingVersion("text-embedding-3-small", 256);
+        when(openAIService.createEmbeddings(anyList(), any(), eq(target))).thenAnswer(invocation ->
+                List.of(new double[256]));
+
+        reindexService.start(false, null, 256);
+
+        verify(checkpointRepository, timeout(2000).atLeastOnce()).save(argThat(c ->
+                c.getStatus() == EmbeddingReindexCheckpoint.Status.COMPLETED));
+        verify(openAIService).createEmbeddings(anyList(), any(), eq(target));
+        verify(semanticSearchService, never()).indexEmbeddings(any());
+        verify(semanticSearchService, never()).rebuildVectorIndex();
+    }
+}
@@ -0,0 +1,46 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.service.implementation.EmbeddingResponseParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test for EmbeddingResponseParser
+ */
+public class EmbeddingResponseParserTest {
+
+    @Test
+    void parse_readsFloatArraysInIndexOrder() {
+        String json = "{\"object\":\"list\",\"data\":["
+                + "{\"object\":\"embedding\",\"embedding\":[0.5,-1.25],\"index\":1},"
+                + "{\"object\":\"embedding\",\"index\":0,\"embedding\":[1,2e-1]}],"
+                + "\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":4,\"total_tokens\":4}}";
+
+        List<double[]> embeddings = EmbeddingResponseParser.parse(json.getBytes(StandardCharsets.UTF_8), 2);
+
+        assertArrayEquals(new double[]{1.0, 0.2}, embeddings.get(0), 1e-9);
+        assertArrayEquals(new double[]{0.5, -1.25}, embeddings.get(1), 1e-9);
+    }
+
+    @Test
+    void parse_decodesBase64PackedFloats() {
+        ByteBuffer packed = ByteBuffer.allocate(3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        packed.putFloat(0.25f).putFloat(-0.5f).putFloat(1.0f);
+        String json = "{\"data\":[{\"index\":0,\"embedding\":\""
+                + Base64.getEncoder().encodeToString(packed.array()) + "\"}]}";
+
+        List<double[]> embeddings = EmbeddingResponseParser.parse(json.getBytes(StandardCharsets.UTF_8), 1);
+
+        assertArrayEquals(new double[]{0.25, -0.5, 1.0}, embeddings.get(0), 1e-9);
+        assertThrows(RuntimeException.class,
+                () -> EmbeddingResponseParser.parse(json.getBytes(StandardCharsets.UTF_8), 2));
+    }
+}
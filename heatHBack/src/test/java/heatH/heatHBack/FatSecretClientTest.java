@@ -0,0 +1,100 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.client.FatSecretClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestToUriTemplate;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit test for FatSecretClient access token caching
+ */
+public class FatSecretClientTest {
+
+    private static final String TOKEN_URL = "https://oauth.fatsecret.com/connect/token";
+    private static final String NO_FOOD = "{\"foods\": {}}";
+
+    private FatSecretClient client;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        client = new FatSecretClient();
+        ReflectionTestUtils.setField(client, "clientId", "id");
+        ReflectionTestUtils.setField(client, "clientSecret", "secret");
+        server = MockRestServiceServer.bindTo((RestTemplate) ReflectionTestUtils.getField(client, "restTemplate"))
+                .ignoreExpectOrder(true)
+                .build();
+    }
+
+    @Test
+    void getFoodNutrition_reusesTokenUntilItNearsExpiry() {
+        server.expect(ExpectedCount.once(), requestTo(TOKEN_URL)).andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\"access_token\": \"t1\", \"expires_in\": 86400}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.times(3), requestToUriTemplate(
+                        "https://platform.fatsecret.com/rest/server.api?method=foods.search&search_expression=egg&format=json&max_results=1"))
+                .andRespond(withSuccess(NO_FOOD, MediaType.APPLICATION_JSON));
+
+        client.getFoodNutrition("egg");
+        client.getFoodNutrition("egg");
+        client.getFoodNutrition("egg");
+
+        server.verify();
+        assertEquals(1, client.tokenStats().getRefreshes());
+        assertEquals(2, client.tokenStats().getHits());
+    }
+
+    @Test
+    void getFoodNutrition_refreshesTokenInsideRefreshMargin() {
+        server.expect(ExpectedCount.twice(), requestTo(TOKEN_URL))
+                .andRespond(withSuccess("{\"access_token\": \"t1\", \"expires_in\": 30}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.twice(), requestToUriTemplate(
+                        "https://platform.fatsecret.com/rest/server.api?method=foods.search&search_expression=egg&format=json&max_results=1"))
+                .andRespond(withSuccess(NO_FOOD, MediaType.APPLICATION_JSON));
+
+        client.getFoodNutrition("egg");
+        client.getFoodNutrition("egg");
+
+        server.verify();
+        assertEquals(2, client.tokenStats().getRefreshes());
+    }
+
+    @Test
+    void getFoodNutrition_parsesDescriptionAndSingleServing() {
+        server.expect(ExpectedCount.once(), requestTo(TOKEN_URL))
+                .andRespond(withSuccess("{\"access_token\": \"t1\", \"expires_in\": 86400}", MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestToUriTemplate(
+                        "https://platform.fatsecret.com/rest/server.api?method=foods.search&search_expression=apple&format=json&max_results=1"))
+                .andRespond(withSuccess("{\"foods\": {\"food\": {\"food_id\": \"35718\", \"food_name\": \"Apples\","
+                        + " \"food_description\": \"Per 100g - Calories: 52kcal | Fat: 0.17g | Carbs: 13.81g | Protein: 0.26g\"}}}",
+                        MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestToUriTemplate(
+                        "https://platform.fatsecret.com/rest/server.api?method=food.get&food_id=35718&format=json"))
+                .andRespond(withSuccess("{\"food\": {\"food_id\": \"35718\", \"servings\": {\"serving\":"
+                        + " {\"sodium\": \"1\", \"potassium\": \"107\", \"vitamin_c\": \"7.6\"}}}}",
+                        MediaType.APPLICATION_JSON));
+
+        NutritionFacts facts = client.getFoodNutrition("apple").orElseThrow();
+
+        server.verify();
+        assertEquals("Apples", facts.name());
+        assertEquals(100, facts.weight());
+        assertEquals(52.0, facts.calories());
+        assertEquals(13.81, facts.carbs());
+        assertEquals(0.17, facts.fat());
+        assertEquals(107.0, facts.potassium());
+        assertEquals(7.6, facts.vitaminC());
+        assertEquals(0.0, facts.iron());
+    }
+}
@@ -3,13 +3,19 @@ package heatH.heatHBack.service;
 import heatH.heatHBack.model.Feed;
 import heatH.heatHBack.model.FeedType;
 import heatH.heatHBack.model.User;
+import heatH.heatHBack.model.response.FeedPageResponse;
 import heatH.heatHBack.model.response.FeedResponse;
+import heatH.heatHBack.model.response.ProfileFeedItem;
+import heatH.heatHBack.model.response.ProfileFeedPageResponse;
 import heatH.heatHBack.repository.FeedRepository;
 import heatH.heatHBack.repository.LikeRepository;
+import heatH.heatHBack.repository.RecipeRepository;
 import heatH.heatHBack.repository.UserRepository;
 import heatH.heatHBack.service.implementation.FeedService;
 import heatH.heatHBack.service.implementation.GcsService;
+import heatH.heatHBack.service.implementation.RecentFeedWindow;
 import heatH.heatHBack.service.implementation.RecipeService;
+import heatH.heatHBack.service.implementation.TimelineService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +24,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -25,8 +32,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,6 +50,7 @@ public class FeedServiceTest {
     private RecipeService recipeService;
     private LikeRepository likeRepository;
     private UserRepository userRepository;
+    private RecipeRepository recipeRepository;
     private GcsService gcsService;
 
     private FeedService feedService;
@@ -48,9 +61,11 @@ public class FeedServiceTest {
         recipeService = mock(RecipeService.class);
         likeRepository = mock(LikeRepository.class);
         userRepository = mock(UserRepository.class);
+        recipeRepository = mock(RecipeRepository.class);
         gcsService = mock(GcsService.class);
 
-        feedService = new FeedService(feedRepository, recipeService, likeRepository, userRepository, gcsService);
+        feedService = new FeedService(feedRepository, recipeService, likeRepository, userRepository, recipeRepository, mock(TimelineService.class),
+                new RecentFeedWindow(0, 0), gcsService);
 
         SecurityContext context = SecurityContextHolder.createEmptyContext();
         context.setAuthentication(new UsernamePasswordAuthenticationToken("testuser@example.com", "password"));
@@ -77,7 +92,7 @@ public class FeedServiceTest {
         feedOwner.setName("John");
         feedOwner.setSurname("Doe");
         feedOwner.setProfilePhoto("http://photo.example/john.png");
-        when(userRepository.findById(200L)).thenReturn(Optional.of(feedOwner));
+        when(userRepository.findAllById(Set.of(200L))).thenReturn(List.of(feedOwner));
 
         Feed feed1 = new Feed();
         feed1.setId(1L);
@@ -99,8 +114,7 @@ public class FeedServiceTest {
         Page<Feed> page = new PageImpl<>(feeds, pageable, feeds.size());
         when(feedRepository.findAllByOrderByCreatedAtDesc(ArgumentMatchers.any(Pageable.class))).thenReturn(page);
 
-        when(likeRepository.findByUserAndFeedId(currentUser, 1L)).thenReturn(Optional.empty());
-        when(likeRepository.findByUserAndFeedId(currentUser, 2L)).thenReturn(Optional.empty());
+        when(likeRepository.findLikedFeedIds(100L, List.of(1L, 2L))).thenReturn(Set.of(2L));
 
         List<FeedResponse> responses = feedService.getRecentFeedsForUser(pageNumber);
 
@@ -111,6 +125,127 @@ public class FeedServiceTest {
         assertEquals("John", r1.getName());
         assertEquals("Doe", r1.getSurname());
         assertEquals(false, r1.isLikedByCurrentUser());
+        assertEquals(true, responses.get(1).isLikedByCurrentUser());
+
+        // one batched lookup each for authors and likes, whatever the page size
+        verify(userRepository, times(1)).findAllById(anyIterable());
+        verify(userRepository, never()).findById(anyLong());
+        verify(likeRepository, times(1)).findLikedFeedIds(anyLong(), anyCollection());
+        verify(likeRepository, never()).findByUserAndFeedId(any(), anyLong());
+    }
+
+    @Test
+    void getRecentFeedsForUser_withCursor_continuesAfterLastFeedWithoutCounting() {
+        User currentUser = new User();
+        currentUser.setId(100L);
+        when(userRepository.findByUsername("testuser@example.com")).thenReturn(Optional.of(currentUser));
+        User author = new User();
+        author.setId(200L);
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(author));
+        when(likeRepository.findLikedFeedIds(anyLong(), anyCollection())).thenReturn(Set.of());
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+        Feed newest = new Feed();
+        newest.setId(9L);
+        newest.setUserId(200L);
+        newest.setCreatedAt(createdAt);
+        when(feedRepository.findAllByOrderByCreatedAtDescIdDesc(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(newest), PageRequest.of(0, 1), true));
+
+        FeedPageResponse first = feedService.getRecentFeedsForUser(null, 1);
+
+        assertTrue(first.isHasMore());
+        assertEquals(List.of(9L), first.getFeeds().stream().map(FeedResponse::getId).toList());
+
+        Feed older = new Feed();
+        older.setId(4L);
+        older.setUserId(200L);
+        older.setCreatedAt(createdAt);
+        when(feedRepository.findPageAfter(eq(createdAt), eq(9L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(older), PageRequest.of(0, 1), false));
+
+        FeedPageResponse second = feedService.getRecentFeedsForUser(first.getNextCursor(), 1);
+
+        assertEquals(List.of(4L), second.getFeeds().stream().map(FeedResponse::getId).toList());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        verify(feedRepository, never()).count();
+    }
+
+    @Test
+    void getRecentFeedsForUser_firstPageIsServedFromWindowWithLikeOverlay() {
+        RecentFeedWindow window = new RecentFeedWindow(10, 60_000);
+        feedService = new FeedService(feedRepository, recipeService, likeRepository, userRepository, recipeRepository,
+                mock(TimelineService.class), window, gcsService);
+
+        User author = new User();
+        author.setId(200L);
+        author.setName("John");
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(author));
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+        Feed newest = new Feed();
+        newest.setId(9L);
+        newest.setUserId(200L);
+        newest.setLikeCount(1);
+        newest.setCreatedAt(createdAt);
+        Feed older = new Feed();
+        older.setId(4L);
+        older.setUserId(200L);
+        older.setLikeCount(0);
+        older.setCreatedAt(createdAt.minusMinutes(5));
+        when(feedRepository.findAllByOrderByCreatedAtDescIdDesc(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(newest, older), PageRequest.of(0, 10), false));
+        when(likeRepository.findLikedFeedIdsByUsername(eq("testuser@example.com"), anyCollection())).thenReturn(Set.of(4L));
+
+        FeedPageResponse first = feedService.getRecentFeedsForUser(null, 1);
+        window.updateCounts(9L, 2, 0);
+        FeedPageResponse again = feedService.getRecentFeedsForUser(null, 2);
+
+        assertEquals(List.of(9L), first.getFeeds().stream().map(FeedResponse::getId).toList());
+        assertTrue(first.isHasMore());
+        assertEquals(List.of(9L, 4L), again.getFeeds().stream().map(FeedResponse::getId).toList());
+        assertEquals("John", again.getFeeds().get(0).getName());
+        assertEquals(2, again.getFeeds().get(0).getLikeCount());
+        assertTrue(again.getFeeds().get(1).isLikedByCurrentUser());
+        assertFalse(again.isHasMore());
+
+        // the window is loaded once; afterwards only the like overlay hits the database
+        verify(feedRepository, times(1)).findAllByOrderByCreatedAtDescIdDesc(any(Pageable.class));
+        verify(userRepository, times(1)).findAllById(anyIterable());
+        verify(userRepository, never()).findByUsername(anyString());
     }
-}
 
+    @Test
+    void getFeedOtherUser_readsProjectedKeysetPages() {
+        User owner = new User();
+        owner.setId(200L);
+        owner.setName("John");
+        when(userRepository.findById(200L)).thenReturn(Optional.of(owner));
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+        ProfileFeedItem post = new ProfileFeedItem(7L, 200L, FeedType.RECIPE, "Dinner", null, createdAt,
+                3, 1, 40L, "Lentil soup", null, 320, 8.5);
+        when(feedRepository.findProfilePage(eq(200L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(post), PageRequest.of(0, 1), true));
+        when(likeRepository.findLikedFeedIdsByUsername("testuser@example.com", List.of(7L))).thenReturn(Set.of(7L));
+
+        ProfileFeedPageResponse first = feedService.getFeedOtherUser(200L, null, 1);
+
+        assertEquals("John", first.getName());
+        assertEquals(List.of(7L), first.getFeeds().stream().map(ProfileFeedItem::getId).toList());
+        assertEquals("Lentil soup", first.getFeeds().get(0).getRecipeTitle());
+        assertTrue(first.getFeeds().get(0).isLikedByCurrentUser());
+        assertTrue(first.isHasMore());
+
+        when(feedRepository.findProfilePageAfter(eq(200L), eq(createdAt), eq(7L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 1), false));
+
+        ProfileFeedPageResponse second = feedService.getFeedOtherUser(200L, first.getNextCursor(), 1);
+
+        assertTrue(second.getFeeds().isEmpty());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        verify(feedRepository, never()).findByUserId(anyLong());
+    }
+}
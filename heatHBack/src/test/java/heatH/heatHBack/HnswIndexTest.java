@@ -0,0 +1,82 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.service.implementation.HnswIndex;
+import heatH.heatHBack.service.implementation.RecipeVectorIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for HnswIndex
+ */
+public class HnswIndexTest {
+
+    @Test
+    void search_findsMostExactNeighbours() {
+        Random random = new Random(7);
+        HnswIndex hnsw = new HnswIndex(16, 100, 1L);
+        RecipeVectorIndex exact = new RecipeVectorIndex();
+        for (long id = 1; id <= 2000; id++) {
+            double[] v = randomVector(random, 32);
+            hnsw.put(id, v);
+            exact.put(id, v);
+        }
+
+        int hits = 0, expected = 0;
+        for (int i = 0; i < 50; i++) {
+            double[] q = randomVector(random, 32);
+            Set<Long> truth = new HashSet<>(exact.nearest(q, 10));
+            List<Long> approx = hnsw.search(q, 10, 64);
+            expected += truth.size();
+            for (Long id : approx) if (truth.contains(id)) hits++;
+        }
+
+        assertTrue((double) hits / expected > 0.9, "recall was " + (double) hits / expected);
+    }
+
+    @Test
+    void remove_tombstonesRecipe() {
+        HnswIndex hnsw = new HnswIndex(4, 16, 1L);
+        hnsw.put(1L, new double[]{1.0, 0.0});
+        hnsw.put(2L, new double[]{0.0, 1.0});
+        hnsw.put(3L, new double[]{0.9, 0.1});
+
+        hnsw.remove(1L);
+
+        List<Long> result = hnsw.search(new double[]{1.0, 0.0}, 3, 16);
+        assertFalse(result.contains(1L));
+        assertEquals(3L, result.get(0));
+        assertEquals(2, hnsw.liveSize());
+    }
+
+    @Test
+    void compact_dropsTombstonesAndKeepsLiveRecipesSearchable() {
+        Random random = new Random(11);
+        HnswIndex hnsw = new HnswIndex(8, 64, 1L);
+        for (long id = 1; id <= 400; id++) hnsw.put(id, randomVector(random, 16));
+        for (long id = 1; id <= 300; id++) hnsw.remove(id);
+        assertTrue(hnsw.needsCompaction(0.2));
+
+        assertTrue(hnsw.compact());
+
+        assertEquals(0, hnsw.deletedCount());
+        assertEquals(100, hnsw.liveSize());
+        assertFalse(hnsw.needsCompaction(0.2));
+        List<Long> result = hnsw.search(randomVector(random, 16), 10, 64);
+        assertEquals(10, result.size());
+        assertTrue(result.stream().allMatch(id -> id > 300));
+    }
+
+    private static double[] randomVector(Random random, int dimension) {
+        double[] v = new double[dimension];
+        for (int i = 0; i < dimension; i++) v[i] = random.nextGaussian();
+        return v;
+    }
+}
@@ -0,0 +1,112 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.IngredientNutrition;
+import heatH.heatHBack.model.NutritionFacts;
+import heatH.heatHBack.model.client.FatSecretClient;
+import heatH.heatHBack.repository.IngredientNutritionRepository;
+import heatH.heatHBack.service.implementation.IngredientNutritionCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for IngredientNutritionCache
+ */
+public class IngredientNutritionCacheTest {
+
+    private FatSecretClient fatSecretClient;
+    private IngredientNutritionRepository repository;
+    private IngredientNutritionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        fatSecretClient = mock(FatSecretClient.class);
+        repository = mock(IngredientNutritionRepository.class);
+        cache = new IngredientNutritionCache(fatSecretClient, repository, 100, 30, 8, 5000);
+        when(repository.findById(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void getFoodNutrition_callsFatSecretOncePerNormalizedName() {
+        NutritionFacts egg = new NutritionFacts("Egg", 100, 143, 12.6, 9.5, 0.7, 0, 0, 0, 0, 0, 0, 0, 0);
+        when(fatSecretClient.getFoodNutrition("egg")).thenReturn(Optional.of(egg));
+
+        cache.getFoodNutrition("Egg");
+        Optional<NutritionFacts> second = cache.getFoodNutrition("  egg ");
+
+        assertEquals(egg, second.orElseThrow());
+        verify(fatSecretClient, times(1)).getFoodNutrition(any());
+        verify(repository, times(1)).save(any(IngredientNutrition.class));
+        assertEquals(1, cache.stats().getMemoryHits());
+    }
+
+    @Test
+    void getFoodNutrition_sharesOneLookupBetweenConcurrentMisses() throws Exception {
+        NutritionFacts rice = new NutritionFacts("Rice", 100, 130, 2.7, 0.3, 28, 0, 0, 0, 0, 0, 0, 0, 0);
+        CountDownLatch called = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fatSecretClient.getFoodNutrition("rice")).thenAnswer(invocation -> {
+            called.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Optional.of(rice);
+        });
+
+        AtomicInteger resolved = new AtomicInteger();
+        Runnable lookup = () -> cache.getFoodNutrition(" Rice ").ifPresent(facts -> resolved.incrementAndGet());
+        Thread first = new Thread(lookup);
+        first.start();
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread waiter = new Thread(lookup);
+            waiter.start();
+            waiters.add(waiter);
+        }
+        // every waiter is parked on the first lookup before it is allowed to finish
+        long deadline = System.currentTimeMillis() + 5000;
+        while (waiters.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        first.join(5000);
+        for (Thread waiter : waiters) waiter.join(5000);
+
+        assertEquals(5, resolved.get());
+        verify(fatSecretClient, times(1)).getFoodNutrition(any());
+        verify(repository, times(1)).findById("rice");
+        verify(repository, times(1)).save(any(IngredientNutrition.class));
+    }
+
+    @Test
+    void getFoodNutrition_servesStaleRowWhenRefreshFails() {
+        IngredientNutrition stale = new IngredientNutrition();
+        stale.setIngredientKey("salt");
+        stale.setWeight(100);
+        stale.setCalories(0.0);
+        stale.setSodium(38758.0);
+        stale.setFetchedAt(LocalDateTime.now().minusDays(60));
+        when(repository.findById("salt")).thenReturn(Optional.of(stale));
+        when(fatSecretClient.getFoodNutrition("salt")).thenThrow(new RuntimeException("timeout"));
+
+        Optional<NutritionFacts> nutrition = cache.getFoodNutrition("salt");
+
+        assertTrue(nutrition.isPresent());
+        assertEquals(38758.0, nutrition.get().sodium());
+        assertEquals(1, cache.stats().getStaleServed());
+        verify(repository, never()).save(any());
+    }
+}
@@ -0,0 +1,115 @@
+package heatH.heatHBack.service;
+
+import com.sun.net.httpserver.HttpServer;
+import heatH.heatHBack.service.implementation.OpenAIService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for OpenAIService.createEmbeddings against a local /embeddings endpoint
+ */
+public class OpenAIServiceTest {
+
+    private static final int DIMENSIONS = 1536;
+
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void createEmbeddings_decodesFullReindexBatchAboveDefaultBufferLimit() throws Exception {
+        byte[] body = response(100, true);
+        assertTrue(body.length > 800_000, "response should be larger than the 256 KiB codec default");
+        OpenAIService openAIService = service(body, "base64");
+
+        List<double[]> embeddings = openAIService.createEmbeddings(texts(100), Duration.ofSeconds(10));
+
+        assertEquals(100, embeddings.size());
+        assertEquals(DIMENSIONS, embeddings.get(99).length);
+        assertEquals(99 * 0.001, embeddings.get(99)[0], 1e-6);
+    }
+
+    @Test
+    void createEmbeddings_decodesFloatJsonBatch() throws Exception {
+        byte[] body = response(64, false);
+        assertTrue(body.length > 1_000_000);
+        OpenAIService openAIService = service(body, "float");
+
+        List<double[]> embeddings = openAIService.createEmbeddings(texts(64), Duration.ofSeconds(10));
+
+        assertEquals(64, embeddings.size());
+        assertEquals(63 * 0.001, embeddings.get(63)[0], 1e-6);
+    }
+
+    @Test
+    void createEmbeddings_rejectsMoreInputsThanConfigured() throws Exception {
+        OpenAIService openAIService = service(response(1, true), "base64");
+
+        assertThrows(RuntimeException.class, () -> openAIService.createEmbeddings(texts(2049), Duration.ofSeconds(10)));
+    }
+
+    private OpenAIService service(byte[] body, String encoding) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/embeddings", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+        return new OpenAIService("test-key", baseUrl, "text-embedding-3-small", DIMENSIONS, encoding, 2048);
+    }
+
+    // vector i starts with i * 0.001 so the test can tell the items apart
+    private static byte[] response(int count, boolean base64) {
+        Random random = new Random(7);
+        StringBuilder json = new StringBuilder("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":");
+            float[] vector = new float[DIMENSIONS];
+            vector[0] = i * 0.001f;
+            for (int d = 1; d < DIMENSIONS; d++) vector[d] = (random.nextFloat() - 0.5f) / 10;
+            if (base64) {
+                ByteBuffer packed = ByteBuffer.allocate(DIMENSIONS * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (float value : vector) packed.putFloat(value);
+                json.append('"').append(Base64.getEncoder().encodeToString(packed.array())).append('"');
+            } else {
+                json.append('[');
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    if (d > 0) json.append(',');
+                    json.append(vector[d]);
+                }
+                json.append(']');
+            }
+            json.append('}');
+        }
+        json.append("],\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":1,\"total_tokens\":1}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> texts(int count) {
+        return Collections.nCopies(count, "recipe");
+    }
+}
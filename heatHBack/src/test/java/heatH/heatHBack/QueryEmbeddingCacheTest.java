@@ -0,0 +1,52 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.service.implementation.QueryEmbeddingCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit test for QueryEmbeddingCache
+ */
+public class QueryEmbeddingCacheTest {
+
+    @Test
+    void getOrCompute_reusesEmbeddingForNormalizedQuery() {
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(10, 60);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, double[]> loader = q -> {
+            calls.incrementAndGet();
+            return new double[]{1.0};
+        };
+
+        cache.getOrCompute("Chicken Salad", loader);
+        cache.getOrCompute("  chicken   salad ", loader);
+
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    void getOrCompute_evictsLeastRecentlyUsedQuery() {
+        QueryEmbeddingCache cache = new QueryEmbeddingCache(2, 60);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, double[]> loader = q -> {
+            calls.incrementAndGet();
+            return new double[]{1.0};
+        };
+
+        cache.getOrCompute("a", loader);
+        cache.getOrCompute("b", loader);
+        cache.getOrCompute("a", loader);
+        cache.getOrCompute("c", loader);
+        cache.getOrCompute("a", loader);
+        cache.getOrCompute("b", loader);
+
+        assertEquals(4, calls.get());
+        assertEquals(2, cache.stats().getEvictions());
+    }
+}
@@ -0,0 +1,146 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.NutritionData;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.request.SearchFilters;
+import heatH.heatHBack.service.implementation.RecipeAttributeIndex;
+import heatH.heatHBack.service.implementation.RecipeVectorIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for RecipeAttributeIndex and the SearchFilters it evaluates
+ */
+public class RecipeAttributeIndexTest {
+
+    private RecipeAttributeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RecipeAttributeIndex();
+        index.put(recipe(1L, 300, 40.0, 8.0, "Vegan", "Dinner", 20.0));
+        index.put(recipe(2L, 900, 120.0, 4.0, "Meat", "Dinner", 55.0));
+        index.put(recipe(3L, 500, 60.0, 6.0, "vegan", "Breakfast", null));
+    }
+
+    @Test
+    void matcher_returnsNullForMissingOrEmptyFilters() {
+        assertNull(index.matcher(null));
+        assertNull(index.matcher(new SearchFilters()));
+    }
+
+    @Test
+    void matcher_appliesEveryBoundThatIsSet() {
+        SearchFilters filters = new SearchFilters();
+        filters.setMinCalorie(300);
+        filters.setMaxCalorie(600);
+        filters.setMaxPrice(50.0);
+
+        LongPredicate matcher = index.matcher(filters);
+
+        assertTrue(matcher.test(1L));
+        assertFalse(matcher.test(2L));
+        assertFalse(matcher.test(3L));
+    }
+
+    @Test
+    void matcher_comparesTagAndTypeIgnoringCase() {
+        SearchFilters filters = new SearchFilters();
+        filters.setTag("VEGAN");
+        filters.setType("dinner");
+
+        LongPredicate matcher = index.matcher(filters);
+
+        assertTrue(matcher.test(1L));
+        assertFalse(matcher.test(2L));
+        assertFalse(matcher.test(3L));
+    }
+
+    @Test
+    void matcher_rejectsUnknownMacrosOnlyWhenAMacroIsFiltered() {
+        SearchFilters byTag = new SearchFilters();
+        byTag.setTag("vegan");
+        SearchFilters byProtein = new SearchFilters();
+        byProtein.setTag("vegan");
+        byProtein.setMinProtein(0.0);
+
+        assertTrue(index.matcher(byTag).test(3L));
+        assertFalse(index.matcher(byProtein).test(3L));
+        assertTrue(index.matcher(byProtein).test(1L));
+    }
+
+    @Test
+    void matcher_rejectsRecipesThatAreNotIndexed() {
+        SearchFilters filters = new SearchFilters();
+        filters.setMaxPrice(1000.0);
+        LongPredicate matcher = index.matcher(filters);
+
+        index.remove(1L);
+
+        assertFalse(matcher.test(1L));
+        assertFalse(matcher.test(42L));
+        assertTrue(matcher.test(2L));
+    }
+
+    @Test
+    void matcher_keepsTheFiltersItWasMadeWith() {
+        SearchFilters filters = new SearchFilters();
+        filters.setMaxCalorie(400);
+        LongPredicate matcher = index.matcher(filters);
+
+        filters.setMaxCalorie(1000);
+
+        assertFalse(matcher.test(2L));
+    }
+
+    @Test
+    void matcher_givesTheSameResultsInsideAParallelScan() {
+        Random random = new Random(9);
+        RecipeAttributeIndex attributes = new RecipeAttributeIndex();
+        RecipeVectorIndex sequential = new RecipeVectorIndex();
+        RecipeVectorIndex parallel = new RecipeVectorIndex("none", 4, 4096);
+        for (long id = 1; id <= 20_000; id++) {
+            attributes.put(recipe(id, (int) (id % 1000), 10.0, 5.0, id % 3 == 0 ? "vegan" : "meat", "Dinner", 10.0));
+            double[] v = new double[8];
+            for (int i = 0; i < v.length; i++) v[i] = random.nextGaussian();
+            sequential.put(id, v);
+            parallel.put(id, v);
+        }
+        SearchFilters filters = new SearchFilters();
+        filters.setTag("vegan");
+        filters.setMaxCalorie(500);
+        LongPredicate matcher = attributes.matcher(filters);
+
+        double[] q = new double[8];
+        for (int i = 0; i < q.length; i++) q[i] = random.nextGaussian();
+        List<Long> expected = sequential.nearest(q, 10, matcher);
+
+        assertEquals(expected, parallel.nearest(q, 10, matcher));
+        assertEquals(10, expected.size());
+        assertTrue(expected.stream().allMatch(matcher::test));
+    }
+
+    private static Recipe recipe(Long id, int calories, double price, double healthiness,
+                                 String tag, String type, Double protein) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTotalCalorie(calories);
+        recipe.setPrice(price);
+        recipe.setHealthinessScore(healthiness);
+        recipe.setTag(tag);
+        recipe.setType(type);
+        NutritionData nutrition = new NutritionData();
+        nutrition.setProtein(protein);
+        recipe.setNutritionData(nutrition);
+        return recipe;
+    }
+}
@@ -0,0 +1,151 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.Ingredients;
+import heatH.heatHBack.model.NutritionData;
+import heatH.heatHBack.model.NutritionProfile;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.RecipeEnrichmentJob;
+import heatH.heatHBack.model.RecipeEnrichmentStatus;
+import heatH.heatHBack.repository.RecipeEnrichmentJobRepository;
+import heatH.heatHBack.repository.RecipeRepository;
+import heatH.heatHBack.service.implementation.CalorieService;
+import heatH.heatHBack.service.implementation.EmbeddingBatcher;
+import heatH.heatHBack.service.implementation.OpenAIService;
+import heatH.heatHBack.service.implementation.RecipeEnrichmentService;
+import heatH.heatHBack.service.implementation.SemanticSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for RecipeEnrichmentService
+ */
+public class RecipeEnrichmentServiceTest {
+
+    private RecipeEnrichmentJobRepository jobRepository;
+    private RecipeRepository recipeRepository;
+    private CalorieService calorieService;
+    private OpenAIService openAIService;
+    private EmbeddingBatcher embeddingBatcher;
+    private SemanticSearchService semanticSearchService;
+    private RecipeEnrichmentService enrichmentService;
+
+    private Recipe recipe;
+    private RecipeEnrichmentJob job;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jobRepository = mock(RecipeEnrichmentJobRepository.class);
+        recipeRepository = mock(RecipeRepository.class);
+        calorieService = mock(CalorieService.class);
+        openAIService = mock(OpenAIService.class);
+        embeddingBatcher = mock(EmbeddingBatcher.class);
+        semanticSearchService = mock(SemanticSearchService.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        enrichmentService = new RecipeEnrichmentService(jobRepository, recipeRepository, calorieService,
+                openAIService, embeddingBatcher, semanticSearchService, transactionTemplate, 2, 3, 1000, 60_000, 300_000);
+
+        Ingredients egg = new Ingredients();
+        egg.setName("egg");
+        recipe = new Recipe();
+        recipe.setId(7L);
+        recipe.setTitle("Omelette");
+        recipe.setIngredients(List.of(egg));
+        recipe.setEnrichmentStatus(RecipeEnrichmentStatus.PENDING);
+        when(recipeRepository.findAllWithIngredientsByIdIn(List.of(7L))).thenReturn(List.of(recipe));
+        when(recipeRepository.findById(7L)).thenReturn(Optional.of(recipe));
+        when(recipeRepository.existsById(7L)).thenReturn(true);
+
+        job = new RecipeEnrichmentJob();
+        job.setId(1L);
+        job.setRecipeId(7L);
+        job.setStatus(RecipeEnrichmentJob.Status.RUNNING);
+        job.setAttempts(1);
+        when(jobRepository.claimDueJobs(anyInt(), any())).thenReturn(List.of(job)).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        enrichmentService.shutdown();
+    }
+
+    @Test
+    void pollJobs_fillsInNutritionScoreAndEmbedding() {
+        NutritionProfile profile = new NutritionProfile();
+        profile.setTotalCalorie(310);
+        profile.setNutritionData(new NutritionData());
+        when(calorieService.calculateNutritionProfile(any())).thenReturn(profile);
+        when(openAIService.calculateHealthinessScore(any(), eq(310))).thenReturn(3.5);
+        when(embeddingBatcher.embed("Omelette egg")).thenReturn(new double[]{0.1, 0.2});
+
+        enrichmentService.pollJobs();
+
+        verify(jobRepository, timeout(2000)).deleteById(1L);
+        verify(semanticSearchService, timeout(2000)).indexRecipe(recipe);
+        verify(semanticSearchService).saveEmbeddingForRecipe(eq(7L), any());
+        verify(semanticSearchService).saveMigrationEmbedding(7L, "Omelette egg");
+        assertEquals(310, recipe.getTotalCalorie());
+        assertEquals(3.5, recipe.getHealthinessScore());
+        assertEquals(RecipeEnrichmentStatus.COMPLETED, recipe.getEnrichmentStatus());
+        verify(semanticSearchService, never()).removeRecipeFromIndexes(any());
+    }
+
+    @Test
+    void pollJobs_dropsIndexEntryWhenRecipeIsDeletedWhileIndexing() {
+        NutritionProfile profile = new NutritionProfile();
+        profile.setTotalCalorie(310);
+        profile.setNutritionData(new NutritionData());
+        when(calorieService.calculateNutritionProfile(any())).thenReturn(profile);
+        when(openAIService.calculateHealthinessScore(any(), eq(310))).thenReturn(3.5);
+        when(embeddingBatcher.embed("Omelette egg")).thenReturn(new double[]{0.1, 0.2});
+        // the delete commits after the enrichment transaction but before the index write is checked
+        when(recipeRepository.existsById(7L)).thenReturn(false);
+
+        enrichmentService.pollJobs();
+
+        verify(semanticSearchService, timeout(2000)).removeRecipeFromIndexes(7L);
+        var order = inOrder(semanticSearchService);
+        order.verify(semanticSearchService).indexRecipe(recipe);
+        order.verify(semanticSearchService).removeRecipeFromIndexes(7L);
+    }
+
+    @Test
+    void pollJobs_reschedulesFailedJobWithBackoff() {
+        when(calorieService.calculateNutritionProfile(any())).thenReturn(new NutritionProfile());
+        when(openAIService.calculateHealthinessScore(any(), anyInt())).thenThrow(new RuntimeException("rate limited"));
+        job.setAttempts(2);
+
+        LocalDateTime before = LocalDateTime.now();
+        enrichmentService.pollJobs();
+
+        ArgumentCaptor<RecipeEnrichmentJob> saved = ArgumentCaptor.forClass(RecipeEnrichmentJob.class);
+        verify(jobRepository, timeout(2000)).save(saved.capture());
+        assertEquals(RecipeEnrichmentJob.Status.PENDING, saved.getValue().getStatus());
+        assertEquals("rate limited", saved.getValue().getLastError());
+        // second attempt waits twice the base backoff
+        assertTrue(!saved.getValue().getNextAttemptAt().isBefore(before.plusSeconds(2)));
+        assertEquals(RecipeEnrichmentStatus.PENDING, recipe.getEnrichmentStatus());
+        verify(jobRepository, never()).deleteById(any());
+    }
+}
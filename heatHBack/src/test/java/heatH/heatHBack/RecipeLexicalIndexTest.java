@@ -0,0 +1,61 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.Ingredients;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.service.implementation.RecipeLexicalIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test for RecipeLexicalIndex
+ */
+public class RecipeLexicalIndexTest {
+
+    private RecipeLexicalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RecipeLexicalIndex();
+        index.put(recipe(1L, "Chicken Salad", "lunch", "salad", "chicken", "lettuce"));
+        index.put(recipe(2L, "Tomato Soup", "dinner", "soup", "tomato", "salt"));
+        index.put(recipe(3L, "Grilled Vegetables", "dinner", "side", "zucchini", "chicken stock"));
+    }
+
+    @Test
+    void search_ranksTitleMatchAboveIngredientMatch() {
+        assertEquals(List.of(1L, 3L), index.search("chicken", 5));
+    }
+
+    @Test
+    void search_ignoresCaseAndPunctuation() {
+        assertEquals(List.of(2L), index.search("TOMATO-soup!", 5));
+    }
+
+    @Test
+    void remove_dropsRecipeFromResults() {
+        index.remove(1L);
+
+        assertEquals(List.of(3L), index.search("chicken", 5));
+        assertTrue(index.search("lettuce", 5).isEmpty());
+    }
+
+    private static Recipe recipe(Long id, String title, String tag, String type, String... ingredientNames) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTitle(title);
+        recipe.setTag(tag);
+        recipe.setType(type);
+        recipe.setIngredients(Arrays.stream(ingredientNames).map(name -> {
+            Ingredients ingredient = new Ingredients();
+            ingredient.setName(name);
+            return ingredient;
+        }).toList());
+        return recipe;
+    }
+}
@@ -0,0 +1,99 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.RecipeEnrichmentStatus;
+import heatH.heatHBack.model.User;
+import heatH.heatHBack.model.request.RecipeRequest;
+import heatH.heatHBack.repository.*;
+import heatH.heatHBack.service.implementation.GcsService;
+import heatH.heatHBack.service.implementation.OpenAIService;
+import heatH.heatHBack.service.implementation.RecentFeedWindow;
+import heatH.heatHBack.service.implementation.RecipeEnrichmentService;
+import heatH.heatHBack.service.implementation.RecipeService;
+import heatH.heatHBack.service.implementation.SemanticSearchService;
+import heatH.heatHBack.service.implementation.TimelineService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for RecipeService.saveRecipe
+ */
+public class RecipeServiceTest {
+
+    private RecipeRepository recipeRepository;
+    private GcsService gcsService;
+    private RecipeEnrichmentService recipeEnrichmentService;
+    private SemanticSearchService semanticSearchService;
+    private TransactionTemplate transactionTemplate;
+    private RecipeService recipeService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        gcsService = mock(GcsService.class);
+        recipeEnrichmentService = mock(RecipeEnrichmentService.class);
+        semanticSearchService = mock(SemanticSearchService.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+
+        recipeService = new RecipeService(recipeRepository, userRepository, gcsService,
+                mock(SavedRecipeRepository.class), mock(FeedRepository.class), mock(LikeRepository.class),
+                mock(CommentRepository.class), mock(OpenAIService.class), semanticSearchService,
+                recipeEnrichmentService, mock(EasinessRateRepository.class), mock(RecipeEnrichmentJobRepository.class),
+                mock(TimelineService.class), new RecentFeedWindow(0, 0), transactionTemplate);
+
+        User user = new User();
+        user.setId(3L);
+        when(userRepository.findByUsername("testuser@example.com")).thenReturn(Optional.of(user));
+        when(recipeRepository.save(any(Recipe.class))).thenAnswer(invocation -> {
+            Recipe recipe = invocation.getArgument(0);
+            recipe.setId(11L);
+            return recipe;
+        });
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken("testuser@example.com", "password"));
+        SecurityContextHolder.setContext(context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void saveRecipe_uploadsPhotoBeforeOpeningTheTransaction() {
+        when(gcsService.uploadBase64Image(eq("base64-photo"), anyString())).thenReturn("https://storage/photo.jpg");
+        RecipeRequest request = new RecipeRequest();
+        request.setTitle("Menemen");
+        request.setPhoto("base64-photo");
+        request.setPrice(120.0);
+
+        Recipe saved = recipeService.saveRecipe(request);
+
+        assertEquals(11L, saved.getId());
+        assertEquals("https://storage/photo.jpg", saved.getPhoto());
+        assertEquals(RecipeEnrichmentStatus.PENDING, saved.getEnrichmentStatus());
+        var order = inOrder(gcsService, transactionTemplate, recipeRepository, recipeEnrichmentService);
+        order.verify(gcsService).uploadBase64Image(eq("base64-photo"), anyString());
+        order.verify(transactionTemplate).execute(any());
+        order.verify(recipeRepository).save(any(Recipe.class));
+        order.verify(recipeEnrichmentService).enqueue(11L);
+        verify(semanticSearchService).indexRecipe(saved);
+    }
+}
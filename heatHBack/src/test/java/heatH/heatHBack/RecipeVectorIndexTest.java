@@ -0,0 +1,170 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.service.implementation.RecipeVectorIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test for RecipeVectorIndex
+ */
+public class RecipeVectorIndexTest {
+
+    private RecipeVectorIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RecipeVectorIndex();
+        index.put(1L, new double[]{1.0, 0.0, 0.0});
+        index.put(2L, new double[]{0.0, 1.0, 0.0});
+        index.put(3L, new double[]{0.7, 0.7, 0.0});
+    }
+
+    @Test
+    void nearest_returnsRecipesByDescendingSimilarity() {
+        List<Long> result = index.nearest(new double[]{1.0, 0.1, 0.0}, 2);
+
+        assertEquals(List.of(1L, 3L), result);
+    }
+
+    @Test
+    void nearest_withFilter_skipsRejectedRecipesAndStillFillsTopK() {
+        List<Long> result = index.nearest(new double[]{1.0, 0.1, 0.0}, 2, id -> id != 1L);
+
+        assertEquals(List.of(3L, 2L), result);
+    }
+
+    @Test
+    void put_overwritesExistingRowInPlace() {
+        index.put(1L, new double[]{0.0, 0.0, 1.0});
+
+        assertEquals(3, index.size());
+        assertEquals(List.of(1L), index.nearest(new double[]{0.0, 0.0, 1.0}, 1));
+    }
+
+    @Test
+    void remove_keepsRemainingRecipesSearchable() {
+        index.remove(1L);
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(3L, 2L), index.nearest(new double[]{1.0, 0.1, 0.0}, 3));
+    }
+
+    @Test
+    void put_rejectsEmbeddingWithDifferentDimension() {
+        assertFalse(index.put(4L, new double[]{1.0, 0.0}));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void nearest_rejectsQueryWithDifferentDimension() {
+        assertThrows(RuntimeException.class, () -> index.nearest(new double[]{1.0, 0.0}, 2));
+    }
+
+    @Test
+    void nearest_withInt8Quantization_matchesExactRanking() {
+        Random random = new Random(3);
+        RecipeVectorIndex exact = new RecipeVectorIndex();
+        RecipeVectorIndex quantized = new RecipeVectorIndex("int8", 4, 50_000);
+        for (long id = 1; id <= 500; id++) {
+            double[] v = new double[64];
+            for (int i = 0; i < v.length; i++) v[i] = random.nextGaussian();
+            exact.put(id, v);
+            quantized.put(id, v);
+        }
+
+        double[] q = new double[64];
+        for (int i = 0; i < q.length; i++) q[i] = random.nextGaussian();
+
+        assertEquals(exact.nearest(q, 5), quantized.nearest(q, 5));
+    }
+
+    @Test
+    void nearest_withTopKBeyondCatalog_returnsEveryRecipeWithoutOverflowing() {
+        RecipeVectorIndex quantized = new RecipeVectorIndex("int8", 4, 50_000);
+        quantized.put(1L, new double[]{1.0, 0.0, 0.0});
+        quantized.put(2L, new double[]{0.0, 1.0, 0.0});
+
+        assertEquals(List.of(1L, 3L, 2L), index.nearest(new double[]{1.0, 0.1, 0.0}, Integer.MAX_VALUE));
+        assertEquals(List.of(1L, 2L), quantized.nearest(new double[]{1.0, 0.1, 0.0}, Integer.MAX_VALUE / 2));
+    }
+
+    @Test
+    void nearest_parallelScanMatchesSequentialScan() {
+        Random random = new Random(5);
+        RecipeVectorIndex sequential = new RecipeVectorIndex();
+        RecipeVectorIndex parallel = new RecipeVectorIndex("none", 4, 4096);
+        for (long id = 1; id <= 20_000; id++) {
+            double[] v = new double[16];
+            for (int i = 0; i < v.length; i++) v[i] = random.nextGaussian();
+            sequential.put(id, v);
+            parallel.put(id, v);
+        }
+
+        double[] q = new double[16];
+        for (int i = 0; i < q.length; i++) q[i] = random.nextGaussian();
+
+        assertEquals(sequential.nearest(q, 10), parallel.nearest(q, 10));
+    }
+
+    @Test
+    void readSnapshot_restoresWrittenIndex(@TempDir Path dir) throws Exception {
+        Path snapshot = dir.resolve("vectors.snapshot");
+        index.writeSnapshot(snapshot, 1234L);
+
+        RecipeVectorIndex restored = new RecipeVectorIndex();
+        Optional<Long> cutoff = restored.readSnapshot(snapshot);
+
+        assertEquals(Optional.of(1234L), cutoff);
+        assertEquals(3, restored.size());
+        assertEquals(index.nearest(new double[]{1.0, 0.1, 0.0}, 3), restored.nearest(new double[]{1.0, 0.1, 0.0}, 3));
+    }
+
+    @Test
+    void int8Index_keepsFloatRowsInScratchFileAndRestoresSnapshot(@TempDir Path dir) throws Exception {
+        Path rows = dir.resolve("rows");
+        RecipeVectorIndex quantized = new RecipeVectorIndex("int8", 4, 50_000, rows.toString());
+        quantized.put(1L, new double[]{1.0, 0.0, 0.0});
+        quantized.put(2L, new double[]{0.0, 1.0, 0.0});
+        quantized.put(3L, new double[]{0.7, 0.7, 0.0});
+        quantized.remove(1L);
+
+        assertEquals(1, Files.list(rows).count());
+        assertArrayEquals(new float[]{0f, 1f, 0f}, quantized.vectorOf(2L).orElseThrow(), 1e-6f);
+
+        Path snapshot = dir.resolve("vectors.snapshot");
+        quantized.writeSnapshot(snapshot, 99L);
+        RecipeVectorIndex restored = new RecipeVectorIndex("int8", 4, 50_000, rows.toString());
+        assertEquals(Optional.of(99L), restored.readSnapshot(snapshot));
+        assertEquals(List.of(3L, 2L), restored.nearest(new double[]{0.8, 0.6, 0.0}, 2));
+
+        quantized.close();
+        restored.close();
+        assertEquals(0, Files.list(rows).count());
+    }
+
+    @Test
+    void readSnapshot_rejectsHeaderTooLargeToAddressAndKeepsIndex(@TempDir Path dir) throws Exception {
+        Path snapshot = dir.resolve("vectors.snapshot");
+        ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x48525653).putInt(1).putInt(1536).putInt(2_000_000).putLong(0L);
+        Files.write(snapshot, header.array());
+
+        assertThrows(IOException.class, () -> index.readSnapshot(snapshot));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,195 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.EmbeddingVersion;
+import heatH.heatHBack.model.Recipe;
+import heatH.heatHBack.model.RecipeEmbedding;
+import heatH.heatHBack.model.request.SearchFilters;
+import heatH.heatHBack.repository.EmbeddingReindexCheckpointRepository;
+import heatH.heatHBack.repository.RecipeEmbeddingRepository;
+import heatH.heatHBack.repository.RecipeRepository;
+import heatH.heatHBack.service.implementation.EmbeddingBatcher;
+import heatH.heatHBack.service.implementation.OpenAIService;
+import heatH.heatHBack.service.implementation.QueryEmbeddingCache;
+import heatH.heatHBack.service.implementation.RecipeAttributeIndex;
+import heatH.heatHBack.service.implementation.RecipeLexicalIndex;
+import heatH.heatHBack.service.implementation.RecipeVectorIndex;
+import heatH.heatHBack.service.implementation.SemanticSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for SemanticSearchService
+ */
+public class SemanticSearchServiceTest {
+
+    private static final EmbeddingVersion VERSION = new EmbeddingVersion("text-embedding-3-small", 2);
+
+    private EmbeddingBatcher embeddingBatcher;
+    private RecipeEmbeddingRepository embeddingRepository;
+    private RecipeRepository recipeRepository;
+    private SemanticSearchService searchService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        embeddingBatcher = mock(EmbeddingBatcher.class);
+        embeddingRepository = mock(RecipeEmbeddingRepository.class);
+        recipeRepository = mock(RecipeRepository.class);
+        when(recipeRepository.findAllWithCollectionsByIdIn(any())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream().map(SemanticSearchServiceTest::recipe).toList());
+        searchService = service("exact", 64);
+    }
+
+    @Test
+    void search_rejectsTopKOutsideTheConfiguredRange() {
+        for (int topK : new int[]{0, -1, 51, 100_000_000}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> searchService.search("omelette", topK, "hybrid", null));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        verify(embeddingBatcher, never()).embed(any(), any());
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    void search_restoresRankOrderAndSkipsRecipesThatNoLongerExist() {
+        // recipe 4 is closest to the query, then 3, 2 and 1
+        when(embeddingRepository.streamAllBy()).thenReturn(LongStream.rangeClosed(1, 4)
+                .mapToObj(id -> new RecipeEmbedding(id, new double[]{Math.cos(id * 0.1), Math.sin(id * 0.1)}, VERSION)));
+        when(embeddingBatcher.embed(eq("soup"), any())).thenReturn(new double[]{Math.cos(0.45), Math.sin(0.45)});
+        // the database answers in id order, and recipe 2 was deleted after it was ranked
+        doReturn(List.of(recipe(1L), recipe(3L), recipe(4L))).when(recipeRepository).findAllWithCollectionsByIdIn(any());
+
+        List<Recipe> results = searchService.search("soup", 4, "semantic", null);
+
+        assertEquals(List.of(4L, 3L, 1L), results.stream().map(Recipe::getId).toList());
+        verify(recipeRepository).findAllWithCollectionsByIdIn(List.of(4L, 3L, 2L, 1L));
+    }
+
+    @Test
+    void findAllWithCollectionsByIdIn_loadsInstructionsIntoTheSameSessionWithASecondQuery() throws Exception {
+        RecipeRepository repository = mock(RecipeRepository.class);
+        when(repository.findAllWithCollectionsByIdIn(any())).thenCallRealMethod();
+        List<Recipe> withIngredients = List.of(recipe(4L), recipe(3L));
+        when(repository.findAllWithIngredientsByIdIn(List.of(4L, 3L))).thenReturn(withIngredients);
+
+        assertEquals(withIngredients, repository.findAllWithCollectionsByIdIn(List.of(4L, 3L)));
+        verify(repository).findAllWithInstructionsByIdIn(List.of(4L, 3L));
+        // both queries only fill the same entities if they run in one persistence context
+        assertTrue(RecipeRepository.class.getMethod("findAllWithCollectionsByIdIn", Collection.class)
+                .isAnnotationPresent(Transactional.class));
+
+        assertEquals(List.of(), repository.findAllWithCollectionsByIdIn(List.of()));
+        verify(repository, times(1)).findAllWithIngredientsByIdIn(any());
+    }
+
+    @Test
+    void search_fallsBackToExactScanWhenTombstonesLeaveTheGraphShort() {
+        // ten recipes on the unit circle, recipe 1 closest to the query and recipe 10 furthest
+        when(embeddingRepository.streamAllBy()).thenReturn(LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> new RecipeEmbedding(id, new double[]{Math.cos(id * 0.1), Math.sin(id * 0.1)}, VERSION)));
+        when(embeddingBatcher.embed(eq("soup"), any())).thenReturn(new double[]{1.0, 0.0});
+        searchService = service("hnsw", 1);
+        searchService.warmUpIndex();
+
+        // the graph still visits the three deleted nodes among its five candidates
+        Stream.of(1L, 2L, 3L).forEach(searchService::deleteEmbeddingForRecipe);
+        List<Recipe> results = searchService.search("soup", 5, "semantic", null);
+
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), results.stream().map(Recipe::getId).toList());
+    }
+
+    @Test
+    void rebuildVectorIndex_waitsForSearchesStillUsingTheOldIndex() throws Exception {
+        when(embeddingRepository.streamAllBy()).thenAnswer(invocation -> LongStream.rangeClosed(1, 3)
+                .mapToObj(id -> new RecipeEmbedding(id, new double[]{Math.cos(id * 0.1), Math.sin(id * 0.1)}, VERSION)));
+        when(embeddingBatcher.embed(eq("soup"), any())).thenReturn(new double[]{1.0, 0.0});
+        // the first filter call parks the search inside the graph, after it picked up the exact index
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean parked = new AtomicBoolean();
+        RecipeAttributeIndex attributeIndex = new RecipeAttributeIndex() {
+            @Override
+            public LongPredicate matcher(SearchFilters filters) {
+                return id -> {
+                    if (parked.compareAndSet(false, true)) {
+                        entered.countDown();
+                        awaitQuietly(release);
+                    }
+                    return id != 1L;
+                };
+            }
+        };
+        searchService = service("hnsw", 64, attributeIndex);
+        searchService.warmUpIndex();
+
+        AtomicReference<List<Recipe>> results = new AtomicReference<>();
+        Thread search = new Thread(() -> results.set(searchService.search("soup", 3, "semantic", new SearchFilters())));
+        search.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Thread rebuild = new Thread(searchService::rebuildVectorIndex);
+        rebuild.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (rebuild.getState() != Thread.State.WAITING && rebuild.isAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        boolean rebuildWaited = rebuild.isAlive();
+        release.countDown();
+        search.join(5000);
+        rebuild.join(5000);
+
+        assertTrue(rebuildWaited, "the rebuild must not close the old index under a running search");
+        assertFalse(rebuild.isAlive());
+        assertEquals(List.of(2L, 3L), results.get().stream().map(Recipe::getId).toList());
+    }
+
+    private SemanticSearchService service(String mode, int efSearch) {
+        return service(mode, efSearch, new RecipeAttributeIndex());
+    }
+
+    private SemanticSearchService service(String mode, int efSearch, RecipeAttributeIndex attributeIndex) {
+        OpenAIService openAIService = mock(OpenAIService.class);
+        when(openAIService.getEmbeddingVersion()).thenReturn(VERSION);
+        return new SemanticSearchService(embeddingBatcher, openAIService,
+                embeddingRepository, mock(EmbeddingReindexCheckpointRepository.class),
+                recipeRepository, new RecipeVectorIndex(), new QueryEmbeddingCache(100, 60),
+                new RecipeLexicalIndex(), attributeIndex,
+                mode, 16, 200, efSearch, 0.2, 50, "", 1500);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Recipe recipe(Long id) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTitle("Recipe " + id);
+        return recipe;
+    }
+}
@@ -0,0 +1,143 @@
+package heatH.heatHBack.service;
+
+import heatH.heatHBack.model.Feed;
+import heatH.heatHBack.model.TimelineEntry;
+import heatH.heatHBack.model.User;
+import heatH.heatHBack.repository.FeedRepository;
+import heatH.heatHBack.repository.FollowRepository;
+import heatH.heatHBack.repository.TimelineEntryRepository;
+import heatH.heatHBack.repository.UserRepository;
+import heatH.heatHBack.service.implementation.TimelineService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for TimelineService
+ */
+public class TimelineServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+    private TimelineEntryRepository timelineRepository;
+    private FollowRepository followRepository;
+    private FeedRepository feedRepository;
+    private UserRepository userRepository;
+    private TimelineService timelineService;
+
+    @BeforeEach
+    void setUp() {
+        timelineRepository = mock(TimelineEntryRepository.class);
+        followRepository = mock(FollowRepository.class);
+        feedRepository = mock(FeedRepository.class);
+        userRepository = mock(UserRepository.class);
+        timelineService = new TimelineService(timelineRepository, followRepository, feedRepository,
+                userRepository, 100, 50, 90);
+    }
+
+    @Test
+    void homeTimeline_mergesPushedAndPulledFeedsNewestFirst() {
+        User me = user(1L, 0);
+
+        // pushed: feeds 10 (t-1) and 12 (t-3); pulled celebrity feeds: 11 (t-2) and 13 (t-4)
+        when(timelineRepository.findByUserIdOrderByCreatedAtDescFeedIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(entry(1L, 10L, 1), entry(1L, 12L, 3)), Pageable.ofSize(3), false));
+        when(feedRepository.findPulledFeedIds(1L, 4)).thenReturn(List.of(11L, 13L));
+        when(feedRepository.findByIdIn(List.of(11L, 13L))).thenReturn(List.of(feed(13L, 7L, 4), feed(11L, 7L, 2)));
+        when(feedRepository.findByIdIn(argThat(ids -> ids.contains(10L))))
+                .thenReturn(List.of(feed(12L, 2L, 3), feed(10L, 2L, 1)));
+
+        Slice<Feed> page = timelineService.homeTimeline(me, null, 3);
+
+        assertEquals(List.of(10L, 11L, 12L), page.getContent().stream().map(Feed::getId).toList());
+        assertTrue(page.hasNext());
+        // only the pushed entries that made the page are loaded; pulled feeds were loaded with the pull
+        verify(feedRepository).findByIdIn(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(10L, 12L))));
+    }
+
+    @Test
+    void onFeedCreated_skipsFanOutForHighFollowerAuthors() {
+        User popularAuthor = user(5L, 5000);
+        User regularAuthor = user(6L, 3);
+        Feed popular = feed(20L, 5L, 0);
+        popular.setFannedOut(timelineService.fansOut(popularAuthor));
+        Feed regular = feed(21L, 6L, 0);
+        regular.setFannedOut(timelineService.fansOut(regularAuthor));
+
+        timelineService.onFeedCreated(popular, popularAuthor);
+        timelineService.onFeedCreated(regular, regularAuthor);
+
+        verify(timelineRepository).insertEntry(5L, 20L, 5L, NOW);
+        verify(timelineRepository).insertEntry(6L, 21L, 6L, NOW);
+        verify(timelineRepository, never()).fanOutToFollowers(eq(20L), anyLong(), any());
+        verify(timelineRepository).fanOutToFollowers(21L, 6L, NOW);
+        verify(userRepository).markHasPulledFeeds(5L);
+        verify(userRepository, never()).markHasPulledFeeds(6L);
+    }
+
+    @Test
+    void publish_savesPostWithItsFanOutDecisionBeforeFanningOut() {
+        User author = user(6L, 3);
+        Feed feed = feed(null, 6L, 0);
+        when(feedRepository.save(feed)).thenAnswer(invocation -> {
+            feed.setId(23L);
+            return feed;
+        });
+
+        Feed saved = timelineService.publish(feed, author);
+
+        assertEquals(23L, saved.getId());
+        assertTrue(saved.getFannedOut());
+        var order = inOrder(feedRepository, timelineRepository);
+        order.verify(feedRepository).save(feed);
+        order.verify(timelineRepository).insertEntry(6L, 23L, 6L, NOW);
+        order.verify(timelineRepository).fanOutToFollowers(23L, 6L, NOW);
+    }
+
+    @Test
+    void onFeedCreated_followsTheDecisionMadeAtPostTime() {
+        // the author has since dropped below the threshold, but this post was stored as pulled
+        User author = user(5L, 10);
+        author.setHasPulledFeeds(true);
+        Feed feed = feed(22L, 5L, 0);
+        feed.setFannedOut(false);
+
+        timelineService.onFeedCreated(feed, author);
+
+        verify(timelineRepository, never()).fanOutToFollowers(anyLong(), anyLong(), any());
+        verify(userRepository, never()).markHasPulledFeeds(anyLong());
+    }
+
+    private static User user(Long id, int followers) {
+        User user = new User();
+        user.setId(id);
+        user.setFollowerCount(followers);
+        return user;
+    }
+
+    private static Feed feed(Long id, Long userId, int minutesAgo) {
+        Feed feed = new Feed();
+        feed.setId(id);
+        feed.setUserId(userId);
+        feed.setCreatedAt(NOW.minusMinutes(minutesAgo));
+        return feed;
+    }
+
+    private static TimelineEntry entry(Long userId, Long feedId, int minutesAgo) {
+        TimelineEntry entry = new TimelineEntry();
+        entry.setUserId(userId);
+        entry.setFeedId(feedId);
+        entry.setCreatedAt(NOW.minusMinutes(minutesAgo));
+        return entry;
+    }
+}